@@ -0,0 +1,43 @@
+package com.acikgozkaan.book_service.bus;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Ids in {@code stockChanged} are encoded with a trailing {@code !} so receivers only replay
+ * stock events for books whose stock actually moved.
+ */
+public record BookChangeNotification(String origin, List<UUID> bookIds, Set<UUID> stockChanged) {
+
+    private static final String SEPARATOR = "|";
+    private static final String STOCK_MARKER = "!";
+
+    public BookChangeNotification(String origin, List<UUID> bookIds) {
+        this(origin, bookIds, Set.of());
+    }
+
+    public String encode() {
+        return origin + SEPARATOR + bookIds.stream()
+                .map(id -> stockChanged.contains(id) ? id + STOCK_MARKER : id.toString())
+                .collect(Collectors.joining(","));
+    }
+
+    public static BookChangeNotification decode(String payload) {
+        int separator = payload.indexOf(SEPARATOR);
+        if (separator < 0 || separator == payload.length() - 1) {
+            throw new IllegalArgumentException("Malformed book change notification: " + payload);
+        }
+
+        List<UUID> ids = new ArrayList<>();
+        Set<UUID> stockChanged = new HashSet<>();
+        for (String value : payload.substring(separator + 1).split(",")) {
+            boolean stock = value.endsWith(STOCK_MARKER);
+            UUID id = UUID.fromString(stock ? value.substring(0, value.length() - 1) : value);
+            ids.add(id);
+            if (stock) {
+                stockChanged.add(id);
+            }
+        }
+        return new BookChangeNotification(payload.substring(0, separator), List.copyOf(ids), Set.copyOf(stockChanged));
+    }
+}
@@ -0,0 +1,204 @@
+package com.acikgozkaan.book_service.bus;
+
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.BookStockEvent;
+import com.acikgozkaan.book_service.dto.BooksImportedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broadcasts committed book changes to the other replicas over Postgres LISTEN/NOTIFY.
+ * Ids are collected into a set and flushed every interval, so a burst of writes to one book
+ * costs a single notification. Receivers reload the books themselves; payloads only carry ids,
+ * with the ones whose stock changed marked so receivers do not stream stock for other edits.
+ */
+@Slf4j
+@Component
+public class PostgresBookChangeBus {
+
+    public static final String CHANNEL = "book_changes";
+
+    // Postgres caps NOTIFY payloads at 8000 bytes; up to 38 bytes per id leaves room for the origin.
+    private static final int MAX_IDS_PER_NOTIFICATION = 200;
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> pendingStock = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService flusher;
+    private Thread listener;
+    private volatile boolean running;
+
+    public PostgresBookChangeBus(
+            DataSource dataSource,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${book.bus.enabled:true}") boolean enabled,
+            @Value("${book.bus.flush-interval:200ms}") Duration flushInterval) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || !isPostgres()) {
+            log.info("Book change bus disabled; caches and streams stay local to this instance");
+            return;
+        }
+
+        running = true;
+        listener = Thread.ofPlatform().daemon().name("book-change-listener").start(this::listen);
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("book-change-flusher").factory());
+        flusher.scheduleWithFixedDelay(this::flush,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        flusher.shutdown();
+        flush();
+        listener.interrupt();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (running && !event.remote()) {
+            pending.add(event.bookId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(BookStockEvent event) {
+        if (running) {
+            pendingStock.add(event.bookId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksImported(BooksImportedEvent event) {
+        if (running) {
+            event.books().forEach(book -> pending.add(book.id()));
+        }
+    }
+
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<UUID> batch = new ArrayList<>(pending);
+        pending.removeAll(batch);
+        Set<UUID> stockChanged = new HashSet<>();
+        for (UUID id : batch) {
+            if (pendingStock.remove(id)) {
+                stockChanged.add(id);
+            }
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            for (int from = 0; from < batch.size(); from += MAX_IDS_PER_NOTIFICATION) {
+                List<UUID> chunk = batch.subList(from, Math.min(batch.size(), from + MAX_IDS_PER_NOTIFICATION));
+                statement.setString(1, CHANNEL);
+                statement.setString(2, new BookChangeNotification(instanceId, chunk, stockChanged).encode());
+                statement.execute();
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to broadcast {} book changes, retrying on next flush", batch.size(), e);
+            pending.addAll(batch);
+            pendingStock.addAll(stockChanged);
+        }
+    }
+
+    public void receive(String payload) {
+        BookChangeNotification notification = BookChangeNotification.decode(payload);
+        if (instanceId.equals(notification.origin())) {
+            return;
+        }
+        eventPublisher.publishEvent(new RemoteBookChangesEvent(
+                new LinkedHashSet<>(notification.bookIds()), notification.stockChanged()));
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        receiveSafely(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Book change listener lost its connection, reconnecting", e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void receiveSafely(String payload) {
+        try {
+            receive(payload);
+        } catch (RuntimeException e) {
+            log.warn("Failed to apply book change notification {}", payload, e);
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(flushInterval.multipliedBy(5).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            log.warn("Could not determine database for the book change bus", e);
+            return false;
+        }
+    }
+}
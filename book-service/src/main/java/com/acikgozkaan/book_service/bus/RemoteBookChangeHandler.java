@@ -0,0 +1,47 @@
+package com.acikgozkaan.book_service.bus;
+
+import com.acikgozkaan.book_service.config.StockUpdatePublisher;
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.BookStockEvent;
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.mapper.BookMapper;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Replays changes made on other replicas: reloads the books once and feeds them through the same
+ * local listeners (cache, search indexes) as a local write would, and into the stock stream when
+ * the origin reported a stock change.
+ */
+@Component
+@RequiredArgsConstructor
+public class RemoteBookChangeHandler {
+
+    private final BookRepository bookRepository;
+    private final BookMapper bookMapper;
+    private final StockUpdatePublisher stockUpdatePublisher;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @EventListener
+    public void onRemoteChanges(RemoteBookChangesEvent event) {
+        Set<UUID> missing = new HashSet<>(event.bookIds());
+
+        for (Book book : bookRepository.findAllById(event.bookIds())) {
+            missing.remove(book.getId());
+            eventPublisher.publishEvent(new BookChangedEvent(book.getId(), bookMapper.toResponse(book), true));
+            if (event.stockChanged().contains(book.getId())) {
+                stockUpdatePublisher.publish(new BookStockEvent(
+                        book.getId(), book.getTitle(), book.getAvailableStock(), book.getGenre(), null));
+            }
+        }
+
+        missing.forEach(id -> eventPublisher.publishEvent(new BookChangedEvent(id, null, true)));
+    }
+}
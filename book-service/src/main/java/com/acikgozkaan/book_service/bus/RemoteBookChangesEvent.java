@@ -0,0 +1,11 @@
+package com.acikgozkaan.book_service.bus;
+
+import java.util.Set;
+import java.util.UUID;
+
+public record RemoteBookChangesEvent(Set<UUID> bookIds, Set<UUID> stockChanged) {
+
+    public RemoteBookChangesEvent(Set<UUID> bookIds) {
+        this(bookIds, Set.of());
+    }
+}
@@ -0,0 +1,13 @@
+package com.acikgozkaan.book_service.cache;
+
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+public interface BookCache {
+
+    BookResponse get(UUID id, Function<UUID, BookResponse> loader);
+
+    void evict(UUID id);
+}
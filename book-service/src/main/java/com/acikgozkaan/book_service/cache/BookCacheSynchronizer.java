@@ -0,0 +1,20 @@
+package com.acikgozkaan.book_service.cache;
+
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+@RequiredArgsConstructor
+public class BookCacheSynchronizer {
+
+    private final BookCache bookCache;
+
+    // after-commit events can arrive out of order and stock changes do not bump the version, so a
+    // put could leave an older response cached; evicting lets the next read load the current row
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        bookCache.evict(event.bookId());
+    }
+}
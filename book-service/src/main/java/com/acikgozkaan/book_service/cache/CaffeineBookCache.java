@@ -0,0 +1,35 @@
+package com.acikgozkaan.book_service.cache;
+
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+public class CaffeineBookCache implements BookCache {
+
+    private final Cache<UUID, BookResponse> cache;
+
+    public CaffeineBookCache(long maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "books");
+    }
+
+    @Override
+    public BookResponse get(UUID id, Function<UUID, BookResponse> loader) {
+        return cache.get(id, loader);
+    }
+
+    @Override
+    public void evict(UUID id) {
+        cache.invalidate(id);
+    }
+}
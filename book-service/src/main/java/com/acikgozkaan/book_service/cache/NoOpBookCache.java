@@ -0,0 +1,18 @@
+package com.acikgozkaan.book_service.cache;
+
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+public class NoOpBookCache implements BookCache {
+
+    @Override
+    public BookResponse get(UUID id, Function<UUID, BookResponse> loader) {
+        return loader.apply(id);
+    }
+
+    @Override
+    public void evict(UUID id) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.acikgozkaan.book_service.config;
+
+import com.acikgozkaan.book_service.cache.BookCache;
+import com.acikgozkaan.book_service.cache.CaffeineBookCache;
+import com.acikgozkaan.book_service.cache.NoOpBookCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class BookCacheConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "book.cache.type", havingValue = "caffeine", matchIfMissing = true)
+    public BookCache caffeineBookCache(
+            @Value("${book.cache.max-size:10000}") long maxSize,
+            @Value("${book.cache.ttl:10m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        return new CaffeineBookCache(maxSize, ttl, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "book.cache.type", havingValue = "none")
+    public BookCache noOpBookCache() {
+        return new NoOpBookCache();
+    }
+}
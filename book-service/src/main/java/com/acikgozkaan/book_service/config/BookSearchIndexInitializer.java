@@ -0,0 +1,81 @@
+package com.acikgozkaan.book_service.config;
+
+import com.acikgozkaan.book_service.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Creates the PostgreSQL search indexes in the background after startup. Indexes are built
+ * CONCURRENTLY so reads and writes on books continue while they build, and the full-text document
+ * is an expression index rather than a stored column, so the table is never rewritten. Ranked
+ * search uses LIKE until the indexes are ready.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSearchIndexInitializer {
+
+    private static final Map<String, String> POSTGRES_SEARCH_INDEXES = new LinkedHashMap<>();
+
+    static {
+        POSTGRES_SEARCH_INDEXES.put("idx_books_title_trgm", "gin (lower(title) gin_trgm_ops)");
+        POSTGRES_SEARCH_INDEXES.put("idx_books_author_trgm", "gin (lower(author) gin_trgm_ops)");
+        POSTGRES_SEARCH_INDEXES.put("idx_books_isbn_trgm", "gin (lower(isbn) gin_trgm_ops)");
+        POSTGRES_SEARCH_INDEXES.put("idx_books_search_text", "gin (" + BookRepository.SEARCH_VECTOR + ")");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean fullTextAvailable;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSearchIndexes() {
+        try {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+
+            if (!"PostgreSQL".equalsIgnoreCase(database)) {
+                log.info("Full-text search indexes skipped for {}; using LIKE based ranking", database);
+                return;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not inspect the database, using LIKE based ranking: {}", e.getMessage());
+            return;
+        }
+
+        Thread.ofVirtual().name("search-index-build").start(this::buildIndexes);
+    }
+
+    public boolean isFullTextAvailable() {
+        return fullTextAvailable;
+    }
+
+    private void buildIndexes() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            POSTGRES_SEARCH_INDEXES.forEach((name, definition) -> {
+                // an interrupted concurrent build leaves an invalid index that IF NOT EXISTS would keep
+                Boolean invalid = jdbcTemplate.queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                                "WHERE c.relname = ? AND NOT i.indisvalid)", Boolean.class, name);
+                if (Boolean.TRUE.equals(invalid)) {
+                    jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+                }
+                jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON books USING " + definition);
+            });
+            fullTextAvailable = true;
+            log.info("Trigram and full-text search indexes are ready");
+        } catch (DataAccessException e) {
+            log.warn("Could not create search indexes, falling back to LIKE based ranking: {}", e.getMessage());
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.acikgozkaan.book_service.config;
 
+import com.acikgozkaan.book_service.dto.BookSearchCursor;
 import com.acikgozkaan.book_service.entity.Book;
 import com.acikgozkaan.book_service.entity.Genre;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.UUID;
+
 public class BookSpecifications {
 
     public static Specification<Book> withTitle(String title) {
@@ -25,4 +31,41 @@ public class BookSpecifications {
         return (root, query, cb) ->
                 genre == null ? null : cb.equal(root.get("genre"), genre);
     }
-}
\ No newline at end of file
+
+    public static Specification<Book> withAnyText(String term) {
+        return (root, query, cb) -> {
+            if (term == null) {
+                return null;
+            }
+
+            String pattern = "%" + term.toLowerCase() + "%";
+            return cb.or(
+                    cb.like(cb.lower(root.get("title")), pattern),
+                    cb.like(cb.lower(root.get("author")), pattern),
+                    cb.like(cb.lower(root.get("isbn")), pattern)
+            );
+        };
+    }
+
+    public static Specification<Book> after(BookSearchCursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor == null) {
+                return null;
+            }
+
+            Path<UUID> id = root.get("id");
+            if ("publicationYear".equals(cursor.sortField())) {
+                return seek(cb, root.<Integer>get("publicationYear"), Integer.valueOf(cursor.sortValue()), id, cursor.lastId());
+            }
+            return seek(cb, root.<String>get(cursor.sortField()), cursor.sortValue(), id, cursor.lastId());
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate seek(CriteriaBuilder cb, Path<T> key, T lastKey,
+                                                                      Path<UUID> id, UUID lastId) {
+        return cb.or(
+                cb.greaterThan(key, lastKey),
+                cb.and(cb.equal(key, lastKey), cb.greaterThan(id, lastId))
+        );
+    }
+}
@@ -0,0 +1,42 @@
+package com.acikgozkaan.book_service.config;
+
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.BooksImportedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Counter bumped after every committed book change, local or replayed from another replica.
+ * List and search ETags combine it with the query, so any write invalidates them all. The
+ * instance prefix keeps two replicas with equal counters from validating each other's tags.
+ */
+@Component
+public class CatalogGeneration {
+
+    private final String instance = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong generation = new AtomicLong();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksImported(BooksImportedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    public String etag(Map<String, String[]> parameters) {
+        String query = new TreeMap<>(parameters).entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + Arrays.toString(entry.getValue()))
+                .collect(Collectors.joining("&"));
+        return "\"" + instance + "." + generation.get() + "." + Integer.toHexString(query.hashCode()) + "\"";
+    }
+}
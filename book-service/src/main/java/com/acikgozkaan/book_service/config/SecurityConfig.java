@@ -37,9 +37,16 @@ public class SecurityConfig {
 
                         .requestMatchers(
                                 "/api/v1/books/{id}/decrease-stock",
-                                "/api/v1/books/{id}/increase-stock")
+                                "/api/v1/books/{id}/reserve",
+                                "/api/v1/books/{id}/increase-stock",
+                                "/api/v1/books/reserve-stock")
                         .hasRole("PATRON")
 
+                        .requestMatchers(
+                                "/api/v1/books/stock-commands",
+                                "/api/v1/books/reservations/release")
+                        .hasRole("SERVICE")
+
                         .anyRequest().authenticated()
                 );
 
@@ -0,0 +1,241 @@
+package com.acikgozkaan.book_service.config;
+
+import com.acikgozkaan.book_service.dto.BookStockEvent;
+import com.acikgozkaan.book_service.dto.BookStockLevel;
+import com.acikgozkaan.book_service.dto.StockSubscription;
+import com.acikgozkaan.book_service.dto.response.StockFrame;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Snapshot-plus-delta stock feed for dashboards. Stock events are coalesced per book for one
+ * interval, then every subscriber receives a single columnar frame with the books that changed.
+ * Each distinct filter is serialized once per frame. A subscriber that has no demand when a frame
+ * is due is marked stale and gets a fresh snapshot instead of the deltas it missed. Snapshots are
+ * loaded on the bounded elastic scheduler, shared by subscribers with the same filter, and capped
+ * at the snapshot limit; deltas that arrive while a snapshot loads are sent right after it.
+ */
+@Slf4j
+@Component
+public class StockFrameBroadcaster {
+
+    public static final String SNAPSHOT = "snapshot";
+    public static final String DELTA = "delta";
+
+    private final StockUpdatePublisher stockUpdatePublisher;
+    private final BookRepository bookRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration interval;
+    private final int snapshotLimit;
+    private final Set<FrameSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<StockSubscription, Mono<ServerSentEvent<String>>> snapshots = new ConcurrentHashMap<>();
+
+    private Map<UUID, BookStockEvent> window = new HashMap<>();
+    private ScheduledExecutorService ticker;
+
+    public StockFrameBroadcaster(
+            StockUpdatePublisher stockUpdatePublisher,
+            BookRepository bookRepository,
+            ObjectMapper objectMapper,
+            @Value("${book.stock-stream.frame-interval:1s}") Duration interval,
+            @Value("${book.stock-stream.snapshot-limit:5000}") int snapshotLimit) {
+        this.stockUpdatePublisher = stockUpdatePublisher;
+        this.bookRepository = bookRepository;
+        this.objectMapper = objectMapper;
+        this.interval = interval;
+        this.snapshotLimit = snapshotLimit;
+    }
+
+    @PostConstruct
+    void start() {
+        stockUpdatePublisher.addListener(this::record);
+        ticker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("stock-frame-ticker").factory());
+        ticker.scheduleAtFixedRate(this::tick, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+    }
+
+    public Flux<ServerSentEvent<String>> getFrames(StockSubscription subscription) {
+        return Flux.create(sink -> {
+            FrameSubscriber subscriber = new FrameSubscriber(sink, subscription);
+            subscribers.add(subscriber);
+            sink.onRequest(requested -> subscriber.sendSnapshotIfStale());
+            sink.onDispose(() -> subscribers.remove(subscriber));
+        }, FluxSink.OverflowStrategy.ERROR);
+    }
+
+    synchronized void record(BookStockEvent event) {
+        // keep the window's first previousStock so zero-crossing filters see the whole interval
+        window.merge(event.bookId(), event, (first, latest) -> new BookStockEvent(
+                latest.bookId(), latest.title(), latest.stock(), latest.genre(), first.previousStock()));
+    }
+
+    private synchronized Map<UUID, BookStockEvent> drainWindow() {
+        Map<UUID, BookStockEvent> changes = window;
+        window = new HashMap<>();
+        return changes;
+    }
+
+    void tick() {
+        Map<UUID, BookStockEvent> changes = drainWindow();
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        Map<StockSubscription, ServerSentEvent<String>> frames = new HashMap<>();
+        for (FrameSubscriber subscriber : subscribers) {
+            try {
+                subscriber.onTick(() -> frames.computeIfAbsent(subscriber.subscription,
+                        subscription -> deltaFrame(changes.values(), subscription)));
+            } catch (RuntimeException e) {
+                log.warn("Failed to deliver stock frame", e);
+            }
+        }
+    }
+
+    private ServerSentEvent<String> deltaFrame(Collection<BookStockEvent> changes, StockSubscription subscription) {
+        List<UUID> ids = new ArrayList<>();
+        List<Integer> stock = new ArrayList<>();
+        for (BookStockEvent event : changes) {
+            if (subscription.matches(event)) {
+                ids.add(event.bookId());
+                stock.add(event.stock());
+            }
+        }
+        return ids.isEmpty() ? null : frame(DELTA, ids, stock, false);
+    }
+
+    private Mono<ServerSentEvent<String>> snapshot(StockSubscription subscription) {
+        // subscribers asking for the same filter while a snapshot loads share its query
+        return snapshots.computeIfAbsent(subscription, key -> Mono.fromCallable(() -> snapshotFrame(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doFinally(signal -> snapshots.remove(key))
+                .cache());
+    }
+
+    private ServerSentEvent<String> snapshotFrame(StockSubscription subscription) {
+        List<BookStockLevel> levels = subscription.bookIds().isEmpty()
+                ? bookRepository.findStockLevels(subscription.genre(), PageRequest.of(0, snapshotLimit + 1))
+                : bookRepository.findStockLevelsByIdIn(subscription.bookIds());
+
+        boolean truncated = levels.size() > snapshotLimit;
+        if (truncated) {
+            levels = levels.subList(0, snapshotLimit);
+        }
+
+        List<UUID> ids = new ArrayList<>(levels.size());
+        List<Integer> stock = new ArrayList<>(levels.size());
+        for (BookStockLevel level : levels) {
+            ids.add(level.bookId());
+            stock.add(level.stock());
+        }
+        return frame(SNAPSHOT, ids, stock, truncated);
+    }
+
+    private ServerSentEvent<String> frame(String type, List<UUID> ids, List<Integer> stock, boolean truncated) {
+        int[] values = stock.stream().mapToInt(Integer::intValue).toArray();
+        try {
+            String json = objectMapper.writeValueAsString(new StockFrame(type, ids, values, truncated));
+            return ServerSentEvent.builder(json).event(type).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize stock frame", e);
+        }
+    }
+
+    private final class FrameSubscriber {
+
+        private final FluxSink<ServerSentEvent<String>> sink;
+        private final StockSubscription subscription;
+        private final List<ServerSentEvent<String>> heldDeltas = new ArrayList<>();
+        private boolean stale = true;
+        private boolean loading;
+
+        private FrameSubscriber(FluxSink<ServerSentEvent<String>> sink, StockSubscription subscription) {
+            this.sink = sink;
+            this.subscription = subscription;
+        }
+
+        synchronized void onTick(Supplier<ServerSentEvent<String>> delta) {
+            if (sink.isCancelled()) {
+                return;
+            }
+            if (loading) {
+                ServerSentEvent<String> frame = delta.get();
+                if (frame != null) {
+                    heldDeltas.add(frame);
+                }
+                return;
+            }
+            if (sink.requestedFromDownstream() == 0) {
+                stale = true;
+                return;
+            }
+            if (stale) {
+                sendSnapshotIfStale();
+                return;
+            }
+
+            ServerSentEvent<String> frame = delta.get();
+            if (frame != null) {
+                sink.next(frame);
+            }
+        }
+
+        synchronized void sendSnapshotIfStale() {
+            if (stale && !loading && sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                stale = false;
+                loading = true;
+                snapshot(subscription).subscribe(this::onSnapshot, this::onSnapshotFailed);
+            }
+        }
+
+        private synchronized void onSnapshot(ServerSentEvent<String> snapshot) {
+            loading = false;
+            if (sink.isCancelled()) {
+                heldDeltas.clear();
+                return;
+            }
+
+            sink.next(snapshot);
+            for (ServerSentEvent<String> delta : heldDeltas) {
+                if (sink.requestedFromDownstream() == 0) {
+                    stale = true;
+                    break;
+                }
+                sink.next(delta);
+            }
+            heldDeltas.clear();
+        }
+
+        private synchronized void onSnapshotFailed(Throwable error) {
+            log.warn("Failed to load stock snapshot", error);
+            loading = false;
+            heldDeltas.clear();
+            stale = true;
+        }
+    }
+}
@@ -1,19 +1,353 @@
 package com.acikgozkaan.book_service.config;
 
 import com.acikgozkaan.book_service.dto.BookStockEvent;
+import com.acikgozkaan.book_service.dto.StockSubscription;
+import com.acikgozkaan.book_service.entity.Genre;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
+import reactor.core.publisher.FluxSink;
 
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Fans stock events out to SSE subscribers. Every subscriber owns a bounded buffer holding at most
+ * one pending event per book, so a slow client sees the latest stock instead of every change, and
+ * the overflow policy decides what happens once more books than the buffer size are waiting.
+ * Filtered subscriptions are indexed by book id, or by genre when no ids are given, so an event
+ * only visits the subscribers that can match it.
+ * <p>
+ * Events carry a sequence number as their SSE id and the most recent ones are kept in a ring, so a
+ * client reconnecting with Last-Event-ID gets only what it missed, or a {@value #RESYNC_EVENT}
+ * event when that part of the history is gone. Publishing takes no shared lock: ids come from an
+ * atomic counter, and a reconnecting subscriber holds back live events while its replay runs so
+ * nothing is missed or sent twice.
+ */
+@Slf4j
 @Component
 public class StockUpdatePublisher {
-    private final Sinks.Many<BookStockEvent> sink = Sinks.many().multicast().onBackpressureBuffer();
+
+    public static final String RESYNC_EVENT = "resync";
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        DISCONNECT
+    }
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<BookStockEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final Set<Subscriber> everyBook = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Set<Subscriber>> byBook = new ConcurrentHashMap<>();
+    private final Map<Genre, Set<Subscriber>> byGenre = new ConcurrentHashMap<>();
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final Counter emitted;
+    private final Counter dropped;
+    private final Counter conflated;
+    private final Counter disconnected;
+    private final Counter resyncs;
+
+    // Seeded from the clock so ids issued before a restart fall outside the new history.
+    private final long firstSequence = System.currentTimeMillis() * 1000;
+    private final AtomicLong sequence = new AtomicLong(firstSequence - 1);
+    private final AtomicReferenceArray<Sequenced> history;
+
+    public StockUpdatePublisher(
+            MeterRegistry meterRegistry,
+            @Value("${book.stock-stream.buffer-size:256}") int bufferSize,
+            @Value("${book.stock-stream.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy,
+            @Value("${book.stock-stream.replay-size:4096}") int replaySize) {
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = overflowPolicy;
+        this.history = new AtomicReferenceArray<>(replaySize);
+        this.emitted = eventCounter(meterRegistry, "emitted");
+        this.dropped = eventCounter(meterRegistry, "dropped");
+        this.conflated = eventCounter(meterRegistry, "conflated");
+        this.disconnected = Counter.builder("book.stock.stream.disconnects").register(meterRegistry);
+        this.resyncs = Counter.builder("book.stock.stream.resyncs").register(meterRegistry);
+        Gauge.builder("book.stock.stream.subscribers", subscribers, Set::size).register(meterRegistry);
+    }
+
+    public void addListener(Consumer<BookStockEvent> listener) {
+        listeners.add(listener);
+    }
+
+    // Local writes arrive here only after their transaction commits, so a rollback is never streamed.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(BookStockEvent event) {
+        publish(event);
+    }
 
     public void publish(BookStockEvent event) {
-        sink.tryEmitNext(event);
+        listeners.forEach(listener -> listener.accept(event));
+
+        long id = sequence.incrementAndGet();
+        Sequenced entry = new Sequenced(id, event);
+        // a slower writer must not overwrite a newer entry that already reused the slot
+        history.accumulateAndGet(slot(id), entry,
+                (current, next) -> current == null || current.id() < next.id() ? next : current);
+
+        ServerSentEvent<BookStockEvent> sse = toSse(id, event);
+        offerMatching(everyBook, sse);
+        offerMatching(byBook.get(event.bookId()), sse);
+        if (event.genre() != null) {
+            offerMatching(byGenre.get(event.genre()), sse);
+        }
+    }
+
+    public Flux<ServerSentEvent<BookStockEvent>> getStream() {
+        return getStream(StockSubscription.all(), null);
+    }
+
+    public Flux<ServerSentEvent<BookStockEvent>> getStream(StockSubscription subscription, Long lastEventId) {
+        return Flux.create(sink -> {
+            Subscriber subscriber = new Subscriber(sink, subscription);
+            subscribe(subscriber, lastEventId);
+            sink.onRequest(requested -> subscriber.drain());
+            sink.onDispose(() -> unregister(subscriber));
+        }, FluxSink.OverflowStrategy.ERROR);
+    }
+
+    // Registered before the history is read, so every event after the replayed range also arrives live.
+    private void subscribe(Subscriber subscriber, Long lastEventId) {
+        if (lastEventId == null) {
+            register(subscriber);
+            return;
+        }
+
+        subscriber.startReplay(lastEventId);
+        register(subscriber);
+        replay(subscriber, lastEventId, sequence.get());
+        subscriber.finishReplay();
     }
 
-    public Flux<BookStockEvent> getStream() {
-        return sink.asFlux();
+    private void replay(Subscriber subscriber, long lastEventId, long upTo) {
+        long oldest = Math.max(firstSequence, upTo - history.length() + 1);
+        if (lastEventId < oldest - 1 || lastEventId > upTo) {
+            subscriber.resync(upTo);
+            return;
+        }
+
+        LinkedHashMap<UUID, ServerSentEvent<BookStockEvent>> missed = new LinkedHashMap<>();
+        for (long id = lastEventId + 1; id <= upTo; id++) {
+            Sequenced entry = history.get(slot(id));
+            if (entry == null || entry.id() < id) {
+                // id taken but not written yet; the writer delivers it live
+                continue;
+            }
+            if (entry.id() > id) {
+                subscriber.resync(upTo);
+                return;
+            }
+            if (subscriber.subscription.matches(entry.event())) {
+                missed.remove(entry.event().bookId());
+                missed.put(entry.event().bookId(), toSse(id, entry.event()));
+            }
+        }
+
+        if (missed.size() > bufferSize) {
+            subscriber.resync(upTo);
+        } else {
+            subscriber.replayed(missed.values());
+        }
+    }
+
+    private int slot(long id) {
+        return (int) (id % history.length());
+    }
+
+    private void offerMatching(Set<Subscriber> candidates, ServerSentEvent<BookStockEvent> sse) {
+        if (candidates == null) {
+            return;
+        }
+        for (Subscriber subscriber : candidates) {
+            if (subscriber.subscription.matches(sse.data())) {
+                subscriber.offer(sse);
+            }
+        }
+    }
+
+    private void register(Subscriber subscriber) {
+        subscribers.add(subscriber);
+        StockSubscription subscription = subscriber.subscription;
+
+        if (!subscription.bookIds().isEmpty()) {
+            subscription.bookIds().forEach(id -> byBook.compute(id, (key, set) -> add(set, subscriber)));
+        } else if (subscription.genre() != null) {
+            byGenre.compute(subscription.genre(), (key, set) -> add(set, subscriber));
+        } else {
+            everyBook.add(subscriber);
+        }
+    }
+
+    private void unregister(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        StockSubscription subscription = subscriber.subscription;
+
+        if (!subscription.bookIds().isEmpty()) {
+            subscription.bookIds().forEach(id -> byBook.computeIfPresent(id, (key, set) -> remove(set, subscriber)));
+        } else if (subscription.genre() != null) {
+            byGenre.computeIfPresent(subscription.genre(), (key, set) -> remove(set, subscriber));
+        } else {
+            everyBook.remove(subscriber);
+        }
+    }
+
+    private static Set<Subscriber> add(Set<Subscriber> set, Subscriber subscriber) {
+        Set<Subscriber> result = set == null ? ConcurrentHashMap.newKeySet() : set;
+        result.add(subscriber);
+        return result;
+    }
+
+    private static Set<Subscriber> remove(Set<Subscriber> set, Subscriber subscriber) {
+        set.remove(subscriber);
+        return set.isEmpty() ? null : set;
+    }
+
+    private static long idOf(ServerSentEvent<?> sse) {
+        return Long.parseLong(sse.id());
+    }
+
+    private static ServerSentEvent<BookStockEvent> toSse(long id, BookStockEvent event) {
+        return ServerSentEvent.builder(event).id(Long.toString(id)).build();
+    }
+
+    private record Sequenced(long id, BookStockEvent event) {}
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("book.stock.stream.events")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private final class Subscriber {
+
+        private final FluxSink<ServerSentEvent<BookStockEvent>> sink;
+        private final StockSubscription subscription;
+        private final LinkedHashMap<UUID, ServerSentEvent<BookStockEvent>> pending = new LinkedHashMap<>();
+        private ServerSentEvent<BookStockEvent> resync;
+        private boolean draining;
+        // ids the client already has or will get from the replay; live copies of them are skipped
+        private long seenUpTo = Long.MIN_VALUE;
+        private Set<Long> replayedIds = Set.of();
+        private List<ServerSentEvent<BookStockEvent>> heldBack;
+
+        private Subscriber(FluxSink<ServerSentEvent<BookStockEvent>> sink, StockSubscription subscription) {
+            this.sink = sink;
+            this.subscription = subscription;
+        }
+
+        synchronized void startReplay(long lastEventId) {
+            seenUpTo = lastEventId;
+            heldBack = new ArrayList<>();
+        }
+
+        synchronized void replayed(Collection<ServerSentEvent<BookStockEvent>> missed) {
+            replayedIds = new HashSet<>();
+            for (ServerSentEvent<BookStockEvent> sse : missed) {
+                replayedIds.add(idOf(sse));
+                enqueue(sse);
+            }
+        }
+
+        synchronized void finishReplay() {
+            List<ServerSentEvent<BookStockEvent>> held = heldBack;
+            heldBack = null;
+            held.forEach(this::offer);
+            drain();
+        }
+
+        synchronized void resync(long id) {
+            // the client reloads everything up to here, so older live events are moot
+            seenUpTo = Math.max(seenUpTo, id);
+            resyncs.increment();
+            resync = ServerSentEvent.<BookStockEvent>builder().id(Long.toString(id)).event(RESYNC_EVENT).build();
+            drain();
+        }
+
+        synchronized void offer(ServerSentEvent<BookStockEvent> sse) {
+            long id = idOf(sse);
+            if (id <= seenUpTo || replayedIds.contains(id)) {
+                return;
+            }
+            if (heldBack != null) {
+                heldBack.add(sse);
+                return;
+            }
+            enqueue(sse);
+        }
+
+        private void enqueue(ServerSentEvent<BookStockEvent> sse) {
+            UUID bookId = sse.data().bookId();
+            ServerSentEvent<BookStockEvent> previous = pending.get(bookId);
+            if (previous != null && idOf(previous) > idOf(sse)) {
+                // concurrent writers can deliver out of order; keep the newer event
+                conflated.increment();
+                return;
+            }
+            if (pending.remove(bookId) != null) {
+                conflated.increment();
+            }
+            pending.put(bookId, sse);
+
+            if (pending.size() > bufferSize) {
+                dropped.increment();
+                if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                    disconnect();
+                    return;
+                }
+
+                Iterator<ServerSentEvent<BookStockEvent>> oldest = pending.values().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            drain();
+        }
+
+        synchronized void drain() {
+            // sink.next can re-enter through onRequest; the running loop picks up the new demand
+            if (draining) {
+                return;
+            }
+
+            draining = true;
+            try {
+                if (resync != null && sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    sink.next(resync);
+                    resync = null;
+                }
+                while (resync == null && !pending.isEmpty()
+                        && sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    Iterator<ServerSentEvent<BookStockEvent>> next = pending.values().iterator();
+                    ServerSentEvent<BookStockEvent> sse = next.next();
+                    next.remove();
+                    sink.next(sse);
+                    emitted.increment();
+                }
+            } finally {
+                draining = false;
+            }
+        }
+
+        private void disconnect() {
+            log.debug("Disconnecting stock stream subscriber with {} pending events", pending.size());
+            pending.clear();
+            disconnected.increment();
+            unregister(this);
+            sink.complete();
+        }
     }
-}
\ No newline at end of file
+}
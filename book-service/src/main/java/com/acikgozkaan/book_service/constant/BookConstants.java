@@ -3,4 +3,6 @@ package com.acikgozkaan.book_service.constant;
 public class BookConstants {
     public static final int MIN_PUBLICATION_YEAR = 1450;
     public static final int MAX_PUBLICATION_YEAR = 2025;
-}
\ No newline at end of file
+    public static final int MAX_STOCK_SLOTS = 64;
+    public static final int MAX_BATCH_LOOKUP_IDS = 5000;
+}
@@ -1,22 +1,40 @@
 package com.acikgozkaan.book_service.controller;
 
-import com.acikgozkaan.book_service.config.StockUpdatePublisher;
+import com.acikgozkaan.book_service.config.CatalogGeneration;
+import com.acikgozkaan.book_service.dto.request.BookBatchRequest;
+import com.acikgozkaan.book_service.dto.request.BookImportFormat;
 import com.acikgozkaan.book_service.dto.request.BookRequest;
+import com.acikgozkaan.book_service.dto.request.ReservationReleaseRequest;
+import com.acikgozkaan.book_service.dto.request.StockCommandBatchRequest;
+import com.acikgozkaan.book_service.dto.request.StockReservationRequest;
+import com.acikgozkaan.book_service.dto.response.BookImportReport;
 import com.acikgozkaan.book_service.dto.response.BookResponse;
-import com.acikgozkaan.book_service.dto.BookStockEvent;
+import com.acikgozkaan.book_service.dto.response.BookSliceResponse;
+import com.acikgozkaan.book_service.dto.response.BookSuggestion;
+import com.acikgozkaan.book_service.dto.response.StockCommandResult;
 import com.acikgozkaan.book_service.entity.Genre;
 import com.acikgozkaan.book_service.service.BookService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import reactor.core.publisher.Flux;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -24,8 +42,12 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class BookController {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final BookService bookService;
-    private final StockUpdatePublisher publisher;
+    private final CatalogGeneration catalogGeneration;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @PreAuthorize("hasRole('LIBRARIAN')")
@@ -33,36 +55,134 @@ public class BookController {
         return ResponseEntity.status(201).body(bookService.create(request));
     }
 
+    @PostMapping(value = "/import", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('LIBRARIAN')")
+    public ResponseEntity<BookImportReport> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        BookImportFormat format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? BookImportFormat.NDJSON
+                : BookImportFormat.CSV;
+        return ResponseEntity.ok(bookService.importBooks(body, format));
+    }
+
     @GetMapping
     @PreAuthorize("hasAnyRole('LIBRARIAN', 'PATRON')")
-    public ResponseEntity<List<BookResponse>> getAllBooks() {
-        return ResponseEntity.ok(bookService.getAll());
+    public ResponseEntity<List<BookResponse>> getAllBooks(WebRequest webRequest) {
+        String etag = catalogGeneration.etag(webRequest.getParameterMap());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(bookService.getAll());
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('LIBRARIAN', 'PATRON')")
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        ObjectWriter writer = objectMapper.writerFor(BookResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                bookService.exportAll(book -> writeLine(writer, generator, book));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/batch")
+    @PreAuthorize("hasAnyRole('LIBRARIAN', 'PATRON')")
+    public ResponseEntity<Map<UUID, BookResponse>> getBooksByIds(@RequestParam("ids") List<UUID> ids) {
+        return ResponseEntity.ok(bookService.getByIds(ids));
+    }
+
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('LIBRARIAN', 'PATRON')")
+    public ResponseEntity<Map<UUID, BookResponse>> lookupBooksByIds(@Valid @RequestBody BookBatchRequest request) {
+        return ResponseEntity.ok(bookService.getByIds(request.ids()));
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('LIBRARIAN', 'PATRON')")
-    public ResponseEntity<BookResponse> getBookById(@PathVariable("id") UUID id) {
-        return ResponseEntity.ok(bookService.getById(id));
+    public ResponseEntity<BookResponse> getBookById(@PathVariable("id") UUID id, WebRequest webRequest) {
+        BookResponse book = bookService.getById(id);
+        if (webRequest.checkNotModified(book.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(book.etag()).body(book);
     }
 
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('LIBRARIAN', 'PATRON')")
-    public Page<BookResponse> searchBooks(
+    public ResponseEntity<Page<BookResponse>> searchBooks(
             @RequestParam(name = "title", required = false) String title,
             @RequestParam(name = "author", required = false) String author,
             @RequestParam(name = "isbn", required = false) String isbn,
             @RequestParam(name = "genre", required = false) Genre genre,
-            Pageable pageable) {
+            Pageable pageable,
+            WebRequest webRequest) {
+
+        String etag = catalogGeneration.etag(webRequest.getParameterMap());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(bookService.searchBooks(title, author, isbn, genre, pageable));
+    }
+
+    @GetMapping("/suggest")
+    @PreAuthorize("hasAnyRole('LIBRARIAN', 'PATRON')")
+    public List<BookSuggestion> suggestBooks(
+            @RequestParam(name = "q") String prefix,
+            @RequestParam(name = "limit", defaultValue = "10") int limit) {
+
+        return bookService.suggest(prefix, limit);
+    }
+
+    @GetMapping(value = "/search", params = {"q", "!cursor"})
+    @PreAuthorize("hasAnyRole('LIBRARIAN', 'PATRON')")
+    public ResponseEntity<List<BookResponse>> searchBooksRanked(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "genre", required = false) Genre genre,
+            @RequestParam(name = "limit", defaultValue = "20") int limit,
+            WebRequest webRequest) {
 
-        return bookService.searchBooks(title, author, isbn, genre, pageable);
+        String etag = catalogGeneration.etag(webRequest.getParameterMap());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(bookService.searchRanked(query, genre, limit));
+    }
+
+    @GetMapping(value = "/search", params = "cursor")
+    @PreAuthorize("hasAnyRole('LIBRARIAN', 'PATRON')")
+    public ResponseEntity<BookSliceResponse> searchBooksByCursor(
+            @RequestParam(name = "title", required = false) String title,
+            @RequestParam(name = "author", required = false) String author,
+            @RequestParam(name = "isbn", required = false) String isbn,
+            @RequestParam(name = "genre", required = false) Genre genre,
+            @RequestParam(name = "cursor") String cursor,
+            @RequestParam(name = "sortBy", required = false) String sortBy,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            WebRequest webRequest) {
+
+        String etag = catalogGeneration.etag(webRequest.getParameterMap());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag)
+                .body(bookService.searchBooksAfter(title, author, isbn, genre, cursor, sortBy, size));
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('LIBRARIAN')")
     public ResponseEntity<BookResponse> updateBook(
             @PathVariable("id") UUID id,
-            @Valid @RequestBody BookRequest request) {
-        return ResponseEntity.ok(bookService.update(id, request));
+            @Valid @RequestBody BookRequest request,
+            @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        BookResponse book = bookService.update(id, request, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(book.etag()).body(book);
     }
 
     @DeleteMapping("/{id}")
@@ -73,20 +193,69 @@ public class BookController {
     }
 
     @PutMapping("/{id}/decrease-stock")
-    public ResponseEntity<Void> decreaseStock(@PathVariable("id") UUID id) {
-        bookService.decreaseStock(id);
+    public ResponseEntity<Void> decreaseStock(
+            @PathVariable("id") UUID id,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) UUID idempotencyKey) {
+        bookService.decreaseStock(id, idempotencyKey);
         return ResponseEntity.noContent().build();
     }
 
+    @PutMapping("/{id}/reserve")
+    public ResponseEntity<BookResponse> reserveBook(
+            @PathVariable("id") UUID id,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) UUID reservationKey) {
+        return ResponseEntity.ok(bookService.reserve(id, reservationKey));
+    }
+
+    @PostMapping("/reservations/release")
+    public ResponseEntity<StockCommandResult> releaseReservations(
+            @Valid @RequestBody ReservationReleaseRequest request) {
+        return ResponseEntity.ok(bookService.releaseReservations(request));
+    }
+
     @PutMapping("/{id}/increase-stock")
-    public ResponseEntity<Void> increaseStock(@PathVariable("id") UUID id) {
-        bookService.increaseStock(id);
+    public ResponseEntity<Void> increaseStock(
+            @PathVariable("id") UUID id,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) UUID idempotencyKey) {
+        bookService.increaseStock(id, idempotencyKey);
         return ResponseEntity.noContent().build();
     }
 
-    @GetMapping(value = "/stream/stock", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<BookStockEvent> streamBookStock() {
-        return publisher.getStream();
+    @PostMapping("/reserve-stock")
+    public ResponseEntity<Void> reserveStock(@Valid @RequestBody StockReservationRequest request) {
+        bookService.reserveStock(request);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/stock-commands")
+    public ResponseEntity<StockCommandResult> applyStockCommands(@Valid @RequestBody StockCommandBatchRequest request) {
+        return ResponseEntity.ok(bookService.applyStockCommands(request));
+    }
+
+    private static void writeLine(ObjectWriter writer, JsonGenerator generator, BookResponse book) {
+        try {
+            writer.writeValue(generator, book);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the version part of an ETag issued by {@link BookResponse#etag()}. A wildcard means any
+     * version; a tag this service could not have issued never matches.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim().replaceFirst("^W/", "").replace("\"", "");
+        int separator = tag.indexOf('-');
+        try {
+            return Long.parseLong(separator < 0 ? tag : tag.substring(0, separator));
+        } catch (NumberFormatException ex) {
+            return -1L;
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.acikgozkaan.book_service.dto;
+
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+
+import java.util.UUID;
+
+/**
+ * Local notification that a book was written. {@code remote} marks changes replayed from another
+ * replica, which must not be broadcast again.
+ */
+public record BookChangedEvent(UUID bookId, BookResponse book, boolean remote) {
+
+    public BookChangedEvent(UUID bookId, BookResponse book) {
+        this(bookId, book, false);
+    }
+
+    public static BookChangedEvent deleted(UUID bookId) {
+        return new BookChangedEvent(bookId, null);
+    }
+
+    public boolean isDeleted() {
+        return book == null;
+    }
+}
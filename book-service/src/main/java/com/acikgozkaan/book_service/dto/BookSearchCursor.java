@@ -0,0 +1,59 @@
+package com.acikgozkaan.book_service.dto;
+
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+
+import java.io.*;
+import java.util.Base64;
+import java.util.Set;
+import java.util.UUID;
+
+public record BookSearchCursor(String sortField, String sortValue, UUID lastId) {
+
+    public static final String DEFAULT_SORT_FIELD = "title";
+    private static final Set<String> SORT_FIELDS = Set.of("title", "author", "isbn", "publicationYear");
+
+    public static String validSortField(String sortField) {
+        if (sortField == null || sortField.isBlank()) {
+            return DEFAULT_SORT_FIELD;
+        }
+        if (!SORT_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Unsupported sort field: " + sortField);
+        }
+        return sortField;
+    }
+
+    public static BookSearchCursor after(String sortField, BookResponse book) {
+        String value = switch (sortField) {
+            case "author" -> book.author();
+            case "isbn" -> book.isbn();
+            case "publicationYear" -> String.valueOf(book.publicationYear());
+            default -> book.title();
+        };
+        return new BookSearchCursor(sortField, value, book.id());
+    }
+
+    public static BookSearchCursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            String sortField = validSortField(in.readUTF());
+            String sortValue = in.readUTF();
+            UUID lastId = new UUID(in.readLong(), in.readLong());
+            return new BookSearchCursor(sortField, sortValue, lastId);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(sortField);
+            out.writeUTF(sortValue);
+            out.writeLong(lastId.getMostSignificantBits());
+            out.writeLong(lastId.getLeastSignificantBits());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+}
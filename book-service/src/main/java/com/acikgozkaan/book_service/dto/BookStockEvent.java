@@ -1,5 +1,19 @@
 package com.acikgozkaan.book_service.dto;
 
+import com.acikgozkaan.book_service.entity.Genre;
+
 import java.util.UUID;
 
-public record BookStockEvent(UUID bookId, String title, int stock) {}
\ No newline at end of file
+/**
+ * {@code previousStock} is null when the change was replayed from another replica and the prior
+ * value is unknown.
+ */
+public record BookStockEvent(UUID bookId, String title, int stock, Genre genre, Integer previousStock) {
+
+    public boolean crossesZero() {
+        if (previousStock == null) {
+            return stock == 0;
+        }
+        return (previousStock == 0) != (stock == 0);
+    }
+}
@@ -0,0 +1,5 @@
+package com.acikgozkaan.book_service.dto;
+
+import java.util.UUID;
+
+public record BookStockLevel(UUID bookId, Integer stock) {}
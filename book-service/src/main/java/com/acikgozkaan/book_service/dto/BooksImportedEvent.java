@@ -0,0 +1,12 @@
+package com.acikgozkaan.book_service.dto;
+
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+
+import java.util.List;
+
+/**
+ * Local notification that a catalog import committed a batch of new books. Published once per
+ * batch so listeners update their indexes in one pass instead of once per row.
+ */
+public record BooksImportedEvent(List<BookResponse> books) {
+}
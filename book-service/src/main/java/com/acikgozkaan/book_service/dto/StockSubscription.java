@@ -0,0 +1,28 @@
+package com.acikgozkaan.book_service.dto;
+
+import com.acikgozkaan.book_service.entity.Genre;
+
+import java.util.Set;
+import java.util.UUID;
+
+public record StockSubscription(Set<UUID> bookIds, Genre genre, boolean zeroTransitionsOnly) {
+
+    public static final int MAX_BOOK_IDS = 500;
+
+    public StockSubscription {
+        bookIds = bookIds == null ? Set.of() : Set.copyOf(bookIds);
+        if (bookIds.size() > MAX_BOOK_IDS) {
+            throw new IllegalArgumentException("A stock subscription can watch at most " + MAX_BOOK_IDS + " books");
+        }
+    }
+
+    public static StockSubscription all() {
+        return new StockSubscription(Set.of(), null, false);
+    }
+
+    public boolean matches(BookStockEvent event) {
+        return (bookIds.isEmpty() || bookIds.contains(event.bookId()))
+                && (genre == null || genre == event.genre())
+                && (!zeroTransitionsOnly || event.crossesZero());
+    }
+}
@@ -0,0 +1,17 @@
+package com.acikgozkaan.book_service.dto.request;
+
+import com.acikgozkaan.book_service.constant.BookConstants;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.Set;
+import java.util.UUID;
+
+public record BookBatchRequest(
+
+        @NotEmpty(message = "At least one book ID must be given")
+        @Size(max = BookConstants.MAX_BATCH_LOOKUP_IDS, message = "Cannot look up more than 5000 books at once")
+        Set<@NotNull UUID> ids
+
+) {}
@@ -0,0 +1,6 @@
+package com.acikgozkaan.book_service.dto.request;
+
+public enum BookImportFormat {
+    CSV,
+    NDJSON
+}
@@ -26,6 +26,15 @@ public record BookRequest(
         Genre genre,
 
         @Min(value = 0, message = "Stock cannot be negative")
-        int stock
+        int stock,
 
-) {}
\ No newline at end of file
+        @Min(value = 1, message = "Stock slots must be at least 1")
+        @Max(value = BookConstants.MAX_STOCK_SLOTS, message = "Stock slots cannot exceed 64")
+        Integer stockSlots
+
+) {
+
+    public BookRequest(String title, String author, String isbn, int publicationYear, Genre genre, int stock) {
+        this(title, author, isbn, publicationYear, genre, stock, null);
+    }
+}
\ No newline at end of file
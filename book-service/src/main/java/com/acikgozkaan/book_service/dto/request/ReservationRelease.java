@@ -0,0 +1,15 @@
+package com.acikgozkaan.book_service.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record ReservationRelease(
+
+        @NotNull(message = "Reservation key is required")
+        UUID reservationKey,
+
+        @NotNull(message = "Book ID is required")
+        UUID bookId
+
+) {}
@@ -0,0 +1,15 @@
+package com.acikgozkaan.book_service.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record ReservationReleaseRequest(
+
+        @NotEmpty(message = "At least one reservation must be released")
+        @Size(max = 500, message = "Cannot release more than 500 reservations at once")
+        List<@Valid ReservationRelease> reservations
+
+) {}
@@ -0,0 +1,20 @@
+package com.acikgozkaan.book_service.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+/** Returns {@code quantity} copies of a book to stock; {@code id} is the sender's idempotency key. */
+public record StockCommand(
+
+        @NotNull(message = "Command ID is required")
+        UUID id,
+
+        @NotNull(message = "Book ID is required")
+        UUID bookId,
+
+        @Min(value = 1, message = "Quantity must be at least 1")
+        int quantity
+
+) {}
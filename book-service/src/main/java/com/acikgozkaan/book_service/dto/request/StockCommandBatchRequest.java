@@ -0,0 +1,15 @@
+package com.acikgozkaan.book_service.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record StockCommandBatchRequest(
+
+        @NotEmpty(message = "At least one stock command must be given")
+        @Size(max = 500, message = "Cannot apply more than 500 stock commands at once")
+        List<@Valid StockCommand> commands
+
+) {}
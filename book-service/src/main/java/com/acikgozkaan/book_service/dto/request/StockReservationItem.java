@@ -0,0 +1,16 @@
+package com.acikgozkaan.book_service.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record StockReservationItem(
+
+        @NotNull(message = "Book ID is required")
+        UUID bookId,
+
+        @Min(value = 1, message = "Quantity must be at least 1")
+        int quantity
+
+) {}
@@ -0,0 +1,15 @@
+package com.acikgozkaan.book_service.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record StockReservationRequest(
+
+        @NotEmpty(message = "At least one book must be reserved")
+        @Size(max = 50, message = "Cannot reserve more than 50 books at once")
+        List<@Valid StockReservationItem> items
+
+) {}
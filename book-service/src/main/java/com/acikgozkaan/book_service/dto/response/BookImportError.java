@@ -0,0 +1,9 @@
+package com.acikgozkaan.book_service.dto.response;
+
+public record BookImportError(
+
+        long line,
+        String isbn,
+        String message
+
+) {}
@@ -0,0 +1,13 @@
+package com.acikgozkaan.book_service.dto.response;
+
+import java.util.List;
+
+public record BookImportReport(
+
+        long received,
+        long imported,
+        long rejected,
+        List<BookImportError> errors,
+        boolean errorsTruncated
+
+) {}
@@ -12,6 +12,20 @@ public record BookResponse(
         String isbn,
         int publicationYear,
         Genre genre,
-        int stock
+        int stock,
+        long version
 
-) {}
\ No newline at end of file
+) {
+
+    public BookResponse(UUID id, String title, String author, String isbn, int publicationYear, Genre genre, int stock) {
+        this(id, title, author, isbn, publicationYear, genre, stock, 0L);
+    }
+
+    /**
+     * Strong validator for this representation. Stock is part of it because sharded stock changes
+     * land in slot rows and leave the book's version untouched.
+     */
+    public String etag() {
+        return "\"" + version + "-" + stock + "\"";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.acikgozkaan.book_service.dto.response;
+
+import java.util.List;
+
+public record BookSliceResponse(
+
+        List<BookResponse> content,
+        int size,
+        boolean hasNext,
+        String nextCursor
+
+) {}
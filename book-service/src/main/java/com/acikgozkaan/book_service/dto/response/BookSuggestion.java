@@ -0,0 +1,12 @@
+package com.acikgozkaan.book_service.dto.response;
+
+import java.util.UUID;
+
+public record BookSuggestion(
+
+        UUID id,
+        String title,
+        String author,
+        int stock
+
+) {}
@@ -0,0 +1,8 @@
+package com.acikgozkaan.book_service.dto.response;
+
+public record StockCommandResult(
+
+        int applied,
+        int duplicates
+
+) {}
@@ -0,0 +1,17 @@
+package com.acikgozkaan.book_service.dto.response;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Columnar stock frame: {@code stock[i]} is the current stock of {@code bookIds[i]}. A snapshot
+ * is {@code truncated} when the filter matched more books than the snapshot limit.
+ */
+public record StockFrame(
+
+        String type,
+        List<UUID> bookIds,
+        int[] stock,
+        boolean truncated
+
+) {}
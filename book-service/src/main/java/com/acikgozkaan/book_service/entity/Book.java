@@ -2,6 +2,8 @@ package com.acikgozkaan.book_service.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Formula;
 
 import java.util.UUID;
 
@@ -36,4 +38,28 @@ public class Book {
 
     @Column(nullable = false)
     private int stock;
+
+    @Version
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version = 0L;
+
+    @Builder.Default
+    @ColumnDefault("1")
+    @Column(nullable = false)
+    private int stockSlots = 1;
+
+    @Formula("(CASE WHEN stock_slots > 1 THEN " +
+            "(SELECT COALESCE(SUM(s.stock), 0) FROM book_stock_slots s WHERE s.book_id = id) " +
+            "ELSE stock END)")
+    private Integer slotStockTotal;
+
+    public boolean isStockSharded() {
+        return stockSlots > 1;
+    }
+
+    public int getAvailableStock() {
+        return isStockSharded() && slotStockTotal != null ? slotStockTotal : stock;
+    }
 }
\ No newline at end of file
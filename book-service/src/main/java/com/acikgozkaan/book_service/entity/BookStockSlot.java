@@ -0,0 +1,31 @@
+package com.acikgozkaan.book_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+@Entity
+@Table(name = "book_stock_slots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_book_stock_slot", columnNames = {"book_id", "slot"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookStockSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "book_id", nullable = false)
+    private UUID bookId;
+
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(nullable = false)
+    private int stock;
+}
@@ -0,0 +1,46 @@
+package com.acikgozkaan.book_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Idempotency record of a stock command that has already been applied. */
+@Entity
+@Table(name = "processed_stock_commands")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProcessedStockCommand implements Persistable<UUID> {
+
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID bookId;
+
+    @Column(nullable = false)
+    private Instant processedAt;
+
+    // Ids are assigned by the sender, so tell Spring Data to insert instead of merging.
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        newEntity = false;
+    }
+}
@@ -0,0 +1,6 @@
+package com.acikgozkaan.book_service.entity;
+
+public enum ReservationStatus {
+    RESERVED,
+    RELEASED
+}
@@ -0,0 +1,9 @@
+package com.acikgozkaan.book_service.exception;
+
+import java.util.UUID;
+
+public class BookVersionConflictException extends RuntimeException {
+    public BookVersionConflictException(UUID bookId) {
+        super("Book with ID " + bookId + " was modified by another request.");
+    }
+}
@@ -0,0 +1,7 @@
+package com.acikgozkaan.book_service.exception;
+
+public class InvalidImportException extends RuntimeException {
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
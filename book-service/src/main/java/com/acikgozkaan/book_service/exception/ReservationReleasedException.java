@@ -0,0 +1,9 @@
+package com.acikgozkaan.book_service.exception;
+
+import java.util.UUID;
+
+public class ReservationReleasedException extends RuntimeException {
+    public ReservationReleasedException(UUID reservationKey) {
+        super("Reservation " + reservationKey + " was already released or belongs to another book.");
+    }
+}
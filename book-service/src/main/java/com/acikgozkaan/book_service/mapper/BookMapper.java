@@ -16,6 +16,7 @@ public class BookMapper {
                 .publicationYear(request.publicationYear())
                 .genre(request.genre())
                 .stock(request.stock())
+                .stockSlots(request.stockSlots() != null ? request.stockSlots() : 1)
                 .build();
     }
 
@@ -26,6 +27,9 @@ public class BookMapper {
         book.setPublicationYear(request.publicationYear());
         book.setGenre(request.genre());
         book.setStock(request.stock());
+        if (request.stockSlots() != null) {
+            book.setStockSlots(request.stockSlots());
+        }
     }
 
     public BookResponse toResponse(Book book) {
@@ -36,7 +40,8 @@ public class BookMapper {
                 book.getIsbn(),
                 book.getPublicationYear(),
                 book.getGenre(),
-                book.getStock()
+                book.getAvailableStock(),
+                book.getVersion()
         );
     }
 }
\ No newline at end of file
@@ -1,13 +1,92 @@
 package com.acikgozkaan.book_service.repository;
 
+import com.acikgozkaan.book_service.dto.BookStockLevel;
+import com.acikgozkaan.book_service.dto.response.BookResponse;
 import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.entity.Genre;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface BookRepository extends JpaRepository<Book, UUID>, JpaSpecificationExecutor<Book> {
+public interface BookRepository extends JpaRepository<Book, UUID>, JpaSpecificationExecutor<Book>,
+        BookResponseQueries {
+
+    String SELECT_RESPONSE = "SELECT new com.acikgozkaan.book_service.dto.response.BookResponse(" +
+            "b.id, b.title, b.author, b.isbn, b.publicationYear, b.genre, " +
+            "CASE WHEN b.stockSlots > 1 THEN COALESCE(b.slotStockTotal, 0) ELSE b.stock END, b.version) " +
+            "FROM Book b";
+
+    /**
+     * Weighted document searched by the ranked query. It is matched by the expression index
+     * idx_books_search_text, so the text must stay identical in both places.
+     */
+    String SEARCH_VECTOR = "(setweight(to_tsvector('simple', coalesce(title, '')), 'A') || " +
+            "setweight(to_tsvector('simple', coalesce(author, '')), 'B') || " +
+            "setweight(to_tsvector('simple', coalesce(isbn, '')), 'C'))";
 
     boolean existsByIsbn(String isbn);
     boolean existsByIsbnAndIdNot(String isbn, UUID id);
-}
\ No newline at end of file
+
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.isbn FROM Book b")
+    Stream<String> streamAllIsbns();
+
+    @Query(SELECT_RESPONSE + " WHERE b.id = :id")
+    Optional<BookResponse> findResponseById(@Param("id") UUID id);
+
+    @Query(SELECT_RESPONSE)
+    List<BookResponse> findAllResponses();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_RESPONSE + " ORDER BY b.id")
+    Stream<BookResponse> streamAllResponses();
+
+    @Query(SELECT_RESPONSE + " WHERE b.id IN :ids")
+    List<BookResponse> findResponsesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT new com.acikgozkaan.book_service.dto.BookStockLevel(b.id, " +
+            "CASE WHEN b.stockSlots > 1 THEN COALESCE(b.slotStockTotal, 0) ELSE b.stock END) " +
+            "FROM Book b WHERE (:genre IS NULL OR b.genre = :genre) ORDER BY b.id")
+    List<BookStockLevel> findStockLevels(@Param("genre") Genre genre, Pageable pageable);
+
+    @Query("SELECT new com.acikgozkaan.book_service.dto.BookStockLevel(b.id, " +
+            "CASE WHEN b.stockSlots > 1 THEN COALESCE(b.slotStockTotal, 0) ELSE b.stock END) " +
+            "FROM Book b WHERE b.id IN :ids")
+    List<BookStockLevel> findStockLevelsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    List<Book> findFirst1000ByOrderById();
+    List<Book> findFirst1000ByIdGreaterThanOrderById(UUID id);
+
+    @Query(value = "SELECT b.id FROM books b " +
+            "WHERE " + SEARCH_VECTOR + " @@ websearch_to_tsquery('simple', :query) " +
+            "AND (CAST(:genre AS varchar) IS NULL OR b.genre = CAST(:genre AS varchar)) " +
+            "ORDER BY ts_rank_cd(" + SEARCH_VECTOR + ", websearch_to_tsquery('simple', :query)) DESC, b.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<UUID> findRankedIds(@Param("query") String query, @Param("genre") String genre, @Param("limit") int limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.stock = b.stock - :quantity, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.stock >= :quantity AND b.stockSlots <= 1")
+    int decreaseStockIfAvailable(@Param("id") UUID id, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.stock = b.stock + :quantity, b.version = b.version + 1 " +
+            "WHERE b.id = :id AND b.stockSlots <= 1")
+    int increaseStock(@Param("id") UUID id, @Param("quantity") int quantity);
+}
@@ -0,0 +1,23 @@
+package com.acikgozkaan.book_service.repository;
+
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface BookResponseQueries {
+
+    Page<BookResponse> findResponses(Specification<Book> spec, Pageable pageable);
+
+    List<BookResponse> findResponses(Specification<Book> spec, Sort sort, int limit);
+
+    /**
+     * Orders matches by a weighted count of the terms found in title (3), author (2) and isbn (1)
+     * before applying the limit, so the best matches are never cut off by an alphabetical page.
+     */
+    List<BookResponse> findResponsesByRelevance(Specification<Book> spec, List<String> terms, int limit);
+}
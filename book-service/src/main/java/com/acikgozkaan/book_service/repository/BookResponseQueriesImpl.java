@@ -0,0 +1,117 @@
+package com.acikgozkaan.book_service.repository;
+
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.entity.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Specification searches that select straight into {@link BookResponse}, so no {@link Book} is
+ * hydrated, registered in the persistence context or snapshotted for dirty checking.
+ */
+class BookResponseQueriesImpl implements BookResponseQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<BookResponse> findResponses(Specification<Book> spec, Pageable pageable) {
+        TypedQuery<BookResponse> typed = query(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            typed.setFirstResult(Math.toIntExact(pageable.getOffset()));
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        List<BookResponse> content = typed.getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<BookResponse> findResponses(Specification<Book> spec, Sort sort, int limit) {
+        return query(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<BookResponse> findResponsesByRelevance(Specification<Book> spec, List<String> terms, int limit) {
+        return query(spec, (book, cb) -> {
+            Expression<Integer> score = null;
+            for (String term : terms) {
+                Expression<Integer> points = cb.sum(cb.sum(
+                        matchScore(book, cb, "title", term, 3),
+                        matchScore(book, cb, "author", term, 2)),
+                        matchScore(book, cb, "isbn", term, 1));
+                score = score == null ? points : cb.sum(score, points);
+            }
+            return List.of(cb.desc(score), cb.asc(book.get("title")), cb.asc(book.get("id")));
+        }).setMaxResults(limit).getResultList();
+    }
+
+    private TypedQuery<BookResponse> query(Specification<Book> spec, Sort sort) {
+        return query(spec, (book, cb) -> sort.isSorted() ? QueryUtils.toOrders(sort, book, cb) : List.of());
+    }
+
+    private TypedQuery<BookResponse> query(Specification<Book> spec,
+                                           BiFunction<Root<Book>, CriteriaBuilder, List<Order>> orders) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookResponse> query = cb.createQuery(BookResponse.class);
+        Root<Book> book = query.from(Book.class);
+
+        query.select(toResponse(book, cb));
+        Predicate predicate = spec.toPredicate(book, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        List<Order> orderBy = orders.apply(book, cb);
+        if (!orderBy.isEmpty()) {
+            query.orderBy(orderBy);
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private static Expression<Integer> matchScore(Root<Book> book, CriteriaBuilder cb,
+                                                  String field, String term, int points) {
+        return cb.<Integer>selectCase()
+                .when(cb.like(cb.lower(book.get(field)), "%" + term + "%"), points)
+                .otherwise(0);
+    }
+
+    private long count(Specification<Book> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Book> book = query.from(Book.class);
+
+        query.select(cb.count(book));
+        Predicate predicate = spec.toPredicate(book, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static CompoundSelection<BookResponse> toResponse(Root<Book> book, CriteriaBuilder cb) {
+        Expression<Integer> stock = cb.<Integer>selectCase()
+                .when(cb.gt(book.get("stockSlots"), 1), cb.coalesce(book.<Integer>get("slotStockTotal"), 0))
+                .otherwise(book.get("stock"));
+
+        return cb.construct(BookResponse.class,
+                book.get("id"),
+                book.get("title"),
+                book.get("author"),
+                book.get("isbn"),
+                book.get("publicationYear"),
+                book.get("genre"),
+                stock,
+                book.get("version"));
+    }
+}
@@ -0,0 +1,25 @@
+package com.acikgozkaan.book_service.repository;
+
+import com.acikgozkaan.book_service.entity.BookStockSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.UUID;
+
+public interface BookStockSlotRepository extends JpaRepository<BookStockSlot, UUID> {
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookStockSlot s SET s.stock = s.stock - 1 " +
+            "WHERE s.bookId = :bookId AND s.slot = :slot AND s.stock > 0")
+    int decreaseSlotIfAvailable(@Param("bookId") UUID bookId, @Param("slot") int slot);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookStockSlot s SET s.stock = s.stock + :quantity WHERE s.bookId = :bookId AND s.slot = :slot")
+    int increaseSlot(@Param("bookId") UUID bookId, @Param("slot") int slot, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM BookStockSlot s WHERE s.bookId = :bookId")
+    void deleteByBookId(@Param("bookId") UUID bookId);
+}
@@ -0,0 +1,22 @@
+package com.acikgozkaan.book_service.repository;
+
+import com.acikgozkaan.book_service.entity.ProcessedStockCommand;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+public interface ProcessedStockCommandRepository extends JpaRepository<ProcessedStockCommand, UUID> {
+
+    @Query("SELECT c.id FROM ProcessedStockCommand c WHERE c.id IN :ids")
+    Set<UUID> findProcessedIds(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("DELETE FROM ProcessedStockCommand c WHERE c.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") Instant cutoff);
+}
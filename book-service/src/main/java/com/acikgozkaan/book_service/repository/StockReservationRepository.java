@@ -0,0 +1,22 @@
+package com.acikgozkaan.book_service.repository;
+
+import com.acikgozkaan.book_service.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, UUID> {
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE StockReservation r SET r.status = com.acikgozkaan.book_service.entity.ReservationStatus.RELEASED, " +
+            "r.updatedAt = :now WHERE r.id = :id AND r.status = com.acikgozkaan.book_service.entity.ReservationStatus.RESERVED")
+    int markReleased(@Param("id") UUID id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.updatedAt < :cutoff")
+    int deleteUpdatedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -1,22 +1,46 @@
 package com.acikgozkaan.book_service.service;
 
+import com.acikgozkaan.book_service.dto.request.BookImportFormat;
 import com.acikgozkaan.book_service.dto.request.BookRequest;
+import com.acikgozkaan.book_service.dto.request.ReservationReleaseRequest;
+import com.acikgozkaan.book_service.dto.request.StockCommandBatchRequest;
+import com.acikgozkaan.book_service.dto.request.StockReservationRequest;
+import com.acikgozkaan.book_service.dto.response.BookImportReport;
 import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.dto.response.BookSliceResponse;
+import com.acikgozkaan.book_service.dto.response.BookSuggestion;
+import com.acikgozkaan.book_service.dto.response.StockCommandResult;
 import com.acikgozkaan.book_service.entity.Genre;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.InputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface BookService {
 
     BookResponse create(BookRequest request);
+    BookImportReport importBooks(InputStream input, BookImportFormat format);
     BookResponse getById(UUID id);
+    Map<UUID, BookResponse> getByIds(Collection<UUID> ids);
     List<BookResponse> getAll();
+    void exportAll(Consumer<BookResponse> consumer);
     Page<BookResponse> searchBooks(String title, String author, String isbn, Genre genre, Pageable pageable);
+    List<BookSuggestion> suggest(String prefix, int limit);
+    List<BookResponse> searchRanked(String query, Genre genre, int limit);
+    BookSliceResponse searchBooksAfter(String title, String author, String isbn, Genre genre,
+                                       String cursor, String sortBy, int size);
     BookResponse update(UUID id, BookRequest request);
+    BookResponse update(UUID id, BookRequest request, Long expectedVersion);
     void delete(UUID id);
-    void decreaseStock(UUID id);
-    void increaseStock(UUID id);
+    void decreaseStock(UUID id, UUID idempotencyKey);
+    BookResponse reserve(UUID id, UUID reservationKey);
+    StockCommandResult releaseReservations(ReservationReleaseRequest request);
+    void increaseStock(UUID id, UUID idempotencyKey);
+    void reserveStock(StockReservationRequest request);
+    StockCommandResult applyStockCommands(StockCommandBatchRequest request);
 }
\ No newline at end of file
@@ -0,0 +1,355 @@
+package com.acikgozkaan.book_service.service.impl;
+
+import com.acikgozkaan.book_service.dto.BooksImportedEvent;
+import com.acikgozkaan.book_service.dto.request.BookImportFormat;
+import com.acikgozkaan.book_service.dto.request.BookRequest;
+import com.acikgozkaan.book_service.dto.response.BookImportError;
+import com.acikgozkaan.book_service.dto.response.BookImportReport;
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.exception.InvalidImportException;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Loads a streamed catalog in fixed-size batches: rows are parsed and validated one at a time,
+ * each batch checks ISBN uniqueness with a single IN query and is inserted with one JDBC batch in
+ * its own transaction, so memory stays bounded by the batch size whatever the input length. A batch
+ * the database rejects is retried row by row so only the offending rows are reported, and listeners
+ * are notified once per committed batch.
+ */
+@Slf4j
+@Component
+public class BookCatalogImporter {
+
+    private static final String INSERT_BOOK = "INSERT INTO books " +
+            "(id, title, author, isbn, publication_year, genre, stock, version, stock_slots) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?)";
+    private static final List<String> CSV_COLUMNS =
+            List.of("title", "author", "isbn", "publicationYear", "genre", "stock", "stockSlots");
+
+    private final BookRepository bookRepository;
+    private final ShardedStockManager shardedStockManager;
+    private final IsbnBloomFilter isbnFilter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectReader bookReader;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public BookCatalogImporter(
+            BookRepository bookRepository,
+            ShardedStockManager shardedStockManager,
+            IsbnBloomFilter isbnFilter,
+            ApplicationEventPublisher eventPublisher,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            Validator validator,
+            ObjectMapper objectMapper,
+            @Value("${book.import.batch-size:1000}") int batchSize,
+            @Value("${book.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.bookRepository = bookRepository;
+        this.shardedStockManager = shardedStockManager;
+        this.isbnFilter = isbnFilter;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.bookReader = objectMapper.readerFor(BookRequest.class);
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public BookImportReport importBooks(InputStream input, BookImportFormat format) {
+        Report report = new Report();
+        List<Row> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columns = format == BookImportFormat.CSV ? readCsvHeader(reader) : null;
+            long lineNumber = columns == null ? 0 : 1;
+
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                report.received++;
+                Row row = parse(line, lineNumber, columns, report);
+                if (row != null) {
+                    batch.add(row);
+                }
+                if (batch.size() == batchSize) {
+                    insert(batch, report);
+                    batch.clear();
+                }
+            }
+            insert(batch, report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Book import finished: {} received, {} imported, {} rejected",
+                report.received, report.imported, report.rejected);
+        return report.toResponse();
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        return header == null ? Map.of() : columnIndexes(splitCsv(header.replace("\uFEFF", "")));
+    }
+
+    private Map<String, Integer> columnIndexes(List<String> names) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim();
+            for (String column : CSV_COLUMNS) {
+                if (column.equalsIgnoreCase(name)) {
+                    columns.put(column, i);
+                }
+            }
+        }
+
+        List<String> missing = CSV_COLUMNS.stream()
+                .filter(column -> !column.equals("stockSlots") && !columns.containsKey(column))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new InvalidImportException("CSV header is missing columns: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private Row parse(String line, long lineNumber, Map<String, Integer> columns, Report report) {
+        BookRequest request;
+        try {
+            request = columns == null ? bookReader.readValue(line) : fromCsv(splitCsv(line), columns);
+        } catch (JsonProcessingException e) {
+            report.reject(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+            return null;
+        } catch (IllegalArgumentException e) {
+            report.reject(lineNumber, null, e.getMessage());
+            return null;
+        }
+
+        Set<ConstraintViolation<BookRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            report.reject(lineNumber, request.isbn(), message);
+            return null;
+        }
+        return new Row(lineNumber, UUID.randomUUID(), request);
+    }
+
+    private BookRequest fromCsv(List<String> fields, Map<String, Integer> columns) {
+        String slots = field(fields, columns, "stockSlots");
+        return new BookRequest(
+                field(fields, columns, "title"),
+                field(fields, columns, "author"),
+                field(fields, columns, "isbn"),
+                integer(fields, columns, "publicationYear"),
+                genre(field(fields, columns, "genre")),
+                integer(fields, columns, "stock"),
+                slots == null || slots.isBlank() ? null : integer(fields, columns, "stockSlots")
+        );
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= fields.size() ? null : fields.get(index).trim();
+    }
+
+    private static int integer(List<String> fields, Map<String, Integer> columns, String column) {
+        String value = field(fields, columns, column);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static Genre genre(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Genre.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown genre: " + value);
+        }
+    }
+
+    /**
+     * Splits one RFC 4180 record. Quoted fields may contain commas and doubled quotes; records
+     * spanning several lines are not supported.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private void insert(List<Row> batch, Report report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Set<String> candidates = batch.stream()
+                .map(row -> row.request().isbn())
+                .filter(isbnFilter::mightContain)
+                .collect(Collectors.toSet());
+        Set<String> existing = candidates.isEmpty() ? Set.of() : bookRepository.findExistingIsbns(candidates);
+        long falsePositives = candidates.stream().filter(isbn -> !existing.contains(isbn)).count();
+        if (falsePositives > 0) {
+            isbnFilter.recordFalsePositives(falsePositives);
+        }
+
+        Set<String> seen = new HashSet<>();
+        List<Row> accepted = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            String isbn = row.request().isbn();
+            if (existing.contains(isbn)) {
+                report.reject(row.line(), isbn, "Book with ISBN " + isbn + " already exists.");
+            } else if (!seen.add(isbn)) {
+                report.reject(row.line(), isbn, "Duplicate ISBN " + isbn + " earlier in this import.");
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<Row> written = accepted;
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(accepted));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Import batch of {} rows rejected by the database, retrying row by row", accepted.size(), e);
+            written = writeEach(accepted, report);
+        }
+
+        report.imported += written.size();
+        if (!written.isEmpty()) {
+            eventPublisher.publishEvent(new BooksImportedEvent(written.stream().map(Row::toResponse).toList()));
+        }
+    }
+
+    private List<Row> writeEach(List<Row> rows, Report report) {
+        List<Row> written = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(List.of(row)));
+                written.add(row);
+            } catch (DataIntegrityViolationException e) {
+                report.reject(row.line(), row.request().isbn(),
+                        "Rejected by the database, likely a concurrent insert of the same ISBN.");
+            }
+        }
+        return written;
+    }
+
+    private void write(List<Row> rows) {
+        jdbcTemplate.batchUpdate(INSERT_BOOK, rows, rows.size(), (statement, row) -> {
+            BookRequest request = row.request();
+            statement.setObject(1, row.id());
+            statement.setString(2, request.title());
+            statement.setString(3, request.author());
+            statement.setString(4, request.isbn());
+            statement.setInt(5, request.publicationYear());
+            statement.setString(6, request.genre().name());
+            statement.setInt(7, request.stock());
+            statement.setInt(8, slots(request));
+        });
+
+        for (Row row : rows) {
+            BookRequest request = row.request();
+            if (slots(request) > 1) {
+                shardedStockManager.rebalance(Book.builder()
+                        .id(row.id())
+                        .stock(request.stock())
+                        .stockSlots(slots(request))
+                        .build());
+            }
+        }
+    }
+
+    private static int slots(BookRequest request) {
+        return request.stockSlots() == null ? 1 : request.stockSlots();
+    }
+
+    private record Row(long line, UUID id, BookRequest request) {
+
+        private BookResponse toResponse() {
+            return new BookResponse(id, request.title(), request.author(), request.isbn(),
+                    request.publicationYear(), request.genre(), request.stock());
+        }
+    }
+
+    private final class Report {
+
+        private long received;
+        private long imported;
+        private long rejected;
+        private final List<BookImportError> errors = new ArrayList<>();
+
+        private void reject(long line, String isbn, String message) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new BookImportError(line, isbn, message));
+            }
+        }
+
+        private BookImportReport toResponse() {
+            return new BookImportReport(received, imported, rejected, List.copyOf(errors), rejected > errors.size());
+        }
+    }
+}
@@ -1,106 +1,389 @@
 package com.acikgozkaan.book_service.service.impl;
 
+import com.acikgozkaan.book_service.cache.BookCache;
 import com.acikgozkaan.book_service.config.BookSpecifications;
-import com.acikgozkaan.book_service.config.StockUpdatePublisher;
+import com.acikgozkaan.book_service.constant.BookConstants;
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.BookSearchCursor;
+import com.acikgozkaan.book_service.dto.request.BookImportFormat;
 import com.acikgozkaan.book_service.dto.request.BookRequest;
+import com.acikgozkaan.book_service.dto.request.ReservationRelease;
+import com.acikgozkaan.book_service.dto.request.ReservationReleaseRequest;
+import com.acikgozkaan.book_service.dto.request.StockCommand;
+import com.acikgozkaan.book_service.dto.request.StockCommandBatchRequest;
+import com.acikgozkaan.book_service.dto.request.StockReservationRequest;
+import com.acikgozkaan.book_service.dto.response.BookImportReport;
 import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.dto.response.BookSliceResponse;
+import com.acikgozkaan.book_service.dto.response.BookSuggestion;
+import com.acikgozkaan.book_service.dto.response.StockCommandResult;
 import com.acikgozkaan.book_service.dto.BookStockEvent;
 import com.acikgozkaan.book_service.entity.Book;
 import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.entity.ReservationStatus;
+import com.acikgozkaan.book_service.entity.StockReservation;
 import com.acikgozkaan.book_service.exception.BookNotFoundException;
+import com.acikgozkaan.book_service.exception.BookVersionConflictException;
 import com.acikgozkaan.book_service.exception.IsbnAlreadyExistsException;
 import com.acikgozkaan.book_service.exception.OutOfStockException;
+import com.acikgozkaan.book_service.exception.ReservationReleasedException;
 import com.acikgozkaan.book_service.mapper.BookMapper;
 import com.acikgozkaan.book_service.repository.BookRepository;
+import com.acikgozkaan.book_service.repository.StockReservationRepository;
 import com.acikgozkaan.book_service.service.BookService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.UUID;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class BookServiceImpl implements BookService {
 
+    private static final int MAX_SLICE_SIZE = 100;
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
-    private final StockUpdatePublisher stockUpdatePublisher;
+    private final ShardedStockManager shardedStockManager;
+    private final RankedBookSearch rankedBookSearch;
+    private final BookTrigramIndex bookTrigramIndex;
+    private final BookSuggestionIndex bookSuggestionIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookCache bookCache;
+    private final BookCatalogImporter bookCatalogImporter;
+    private final IsbnBloomFilter isbnFilter;
+    private final StockCommandLedger stockCommandLedger;
+    private final StockReservationRepository stockReservationRepository;
 
     @Override
+    @Transactional
     public BookResponse create(BookRequest request) {
         validateIsbnUniquenessOnCreate(request.isbn());
-        Book book = bookMapper.toBook(request);
-        return bookMapper.toResponse(bookRepository.save(book));
+        Book book;
+        try {
+            book = bookRepository.saveAndFlush(bookMapper.toBook(request));
+        } catch (DataIntegrityViolationException e) {
+            throw new IsbnAlreadyExistsException(request.isbn());
+        }
+
+        if (book.isStockSharded()) {
+            shardedStockManager.rebalance(book);
+        }
+        return publishBookChange(bookMapper.toResponse(book));
+    }
+
+    @Override
+    public BookImportReport importBooks(InputStream input, BookImportFormat format) {
+        return bookCatalogImporter.importBooks(input, format);
     }
 
     @Override
     public BookResponse getById(UUID id) {
-        return bookMapper.toResponse(findBookById(id));
+        return bookCache.get(id, key -> bookRepository.findResponseById(key)
+                .orElseThrow(() -> new BookNotFoundException(key)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, BookResponse> getByIds(Collection<UUID> ids) {
+        List<UUID> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        if (distinct.size() > BookConstants.MAX_BATCH_LOOKUP_IDS) {
+            throw new IllegalArgumentException(
+                    "Cannot look up more than " + BookConstants.MAX_BATCH_LOOKUP_IDS + " books at once");
+        }
+
+        Map<UUID, BookResponse> books = new LinkedHashMap<>(distinct.size() * 2);
+        for (int from = 0; from < distinct.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<UUID> chunk = distinct.subList(from, Math.min(distinct.size(), from + IN_CLAUSE_CHUNK_SIZE));
+            bookRepository.findResponsesByIdIn(chunk).forEach(book -> books.put(book.id(), book));
+        }
+        return books;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookResponse> getAll() {
-        return bookRepository.findAll()
-                .stream()
-                .map(bookMapper::toResponse)
-                .toList();
+        return bookRepository.findAllResponses();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<BookResponse> consumer) {
+        try (Stream<BookResponse> books = bookRepository.streamAllResponses()) {
+            books.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<BookResponse> searchBooks(String title, String author, String isbn, Genre genre, Pageable pageable) {
-        Specification<Book> spec = Specification
-                .where(BookSpecifications.withTitle(title))
-                .and(BookSpecifications.withAuthor(author))
-                .and(BookSpecifications.withIsbn(isbn))
-                .and(BookSpecifications.withGenre(genre));
+        Optional<Page<UUID>> indexed = bookTrigramIndex.search(title, author, isbn, genre, pageable);
+        if (indexed.isPresent()) {
+            return loadPage(indexed.get());
+        }
 
-        return bookRepository.findAll(spec, pageable)
-                .map(bookMapper::toResponse);
+        return bookRepository.findResponses(searchSpecification(title, author, isbn, genre), pageable);
     }
 
     @Override
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        return bookSuggestionIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookResponse> searchRanked(String query, Genre genre, int limit) {
+        return rankedBookSearch.search(query, genre, Math.clamp(limit, 1, MAX_SLICE_SIZE));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookSliceResponse searchBooksAfter(String title, String author, String isbn, Genre genre,
+                                              String cursor, String sortBy, int size) {
+        BookSearchCursor after = cursor == null || cursor.isBlank() ? null : BookSearchCursor.decode(cursor);
+        String sortField = after != null ? after.sortField() : BookSearchCursor.validSortField(sortBy);
+        int limit = Math.clamp(size, 1, MAX_SLICE_SIZE);
+
+        Specification<Book> spec = searchSpecification(title, author, isbn, genre)
+                .and(BookSpecifications.after(after));
+
+        List<BookResponse> books = bookRepository.findResponses(spec, Sort.by(sortField, "id"), limit + 1);
+
+        boolean hasNext = books.size() > limit;
+        List<BookResponse> slice = hasNext ? books.subList(0, limit) : books;
+        String nextCursor = hasNext ? BookSearchCursor.after(sortField, slice.getLast()).encode() : null;
+
+        return new BookSliceResponse(
+                List.copyOf(slice),
+                slice.size(),
+                hasNext,
+                nextCursor
+        );
+    }
+
+    @Override
+    @Transactional
     public BookResponse update(UUID id, BookRequest request) {
-        validateIsbnUniquenessOnUpdate(request.isbn(), id);
+        return update(id, request, null);
+    }
+
+    @Override
+    @Transactional
+    public BookResponse update(UUID id, BookRequest request, Long expectedVersion) {
         Book book = findBookById(id);
+        validateIsbnUniquenessOnUpdate(request.isbn(), book);
+        if (expectedVersion != null && book.getVersion() != expectedVersion) {
+            throw new BookVersionConflictException(id);
+        }
+        boolean wasSharded = book.isStockSharded();
+
         bookMapper.updateBookFromRequest(book, request);
-        return bookMapper.toResponse(bookRepository.save(book));
+        // Flushed so the bumped @Version reaches the ETag, the cache and the change event.
+        Book saved;
+        try {
+            saved = bookRepository.saveAndFlush(book);
+        } catch (DataIntegrityViolationException e) {
+            throw new IsbnAlreadyExistsException(request.isbn());
+        }
+
+        if (wasSharded || saved.isStockSharded()) {
+            shardedStockManager.rebalance(saved);
+        }
+        return publishBookChange(bookMapper.toResponse(saved));
     }
 
     @Override
+    @Transactional
     public void delete(UUID id) {
         Book book = findBookById(id);
+
+        if (book.isStockSharded()) {
+            shardedStockManager.remove(id);
+        }
         bookRepository.delete(book);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(id));
     }
 
     @Override
-    public void decreaseStock(UUID id) {
+    @Transactional
+    public void decreaseStock(UUID id, UUID idempotencyKey) {
+        if (idempotencyKey != null && !stockCommandLedger.recordOnce(idempotencyKey, id)) {
+            return;
+        }
+        takeStock(id, 1);
+        publishStockChange(findBookById(id), -1);
+    }
+
+    @Override
+    @Transactional
+    public BookResponse reserve(UUID id, UUID reservationKey) {
+        if (reservationKey != null) {
+            Optional<StockReservation> existing = stockReservationRepository.findById(reservationKey);
+            if (existing.isPresent()) {
+                StockReservation reservation = existing.get();
+                if (reservation.getStatus() != ReservationStatus.RESERVED || !reservation.getBookId().equals(id)) {
+                    throw new ReservationReleasedException(reservationKey);
+                }
+                return bookMapper.toResponse(findBookById(id));
+            }
+        }
+
+        takeStock(id, 1);
+        if (reservationKey != null) {
+            stockReservationRepository.save(StockReservation.builder()
+                    .id(reservationKey)
+                    .bookId(id)
+                    .status(ReservationStatus.RESERVED)
+                    .updatedAt(Instant.now())
+                    .build());
+        }
         Book book = findBookById(id);
+        publishStockChange(book, -1);
+        return bookMapper.toResponse(book);
+    }
 
-        if (book.getStock() <= 0) {
-            throw new OutOfStockException(id);
+    @Override
+    @Transactional
+    public StockCommandResult releaseReservations(ReservationReleaseRequest request) {
+        Instant now = Instant.now();
+        Map<UUID, Integer> quantities = new TreeMap<>();
+        int released = 0;
+
+        for (ReservationRelease release : request.reservations()) {
+            UUID key = release.reservationKey();
+            if (stockReservationRepository.markReleased(key, now) > 0) {
+                UUID bookId = stockReservationRepository.findById(key).map(StockReservation::getBookId)
+                        .orElse(release.bookId());
+                quantities.merge(bookId, 1, Integer::sum);
+                released++;
+            } else if (!stockReservationRepository.existsById(key)) {
+                stockReservationRepository.save(StockReservation.builder()
+                        .id(key)
+                        .bookId(release.bookId())
+                        .status(ReservationStatus.RELEASED)
+                        .updatedAt(now)
+                        .build());
+            }
         }
 
-        book.setStock(book.getStock() - 1);
-        bookRepository.save(book);
+        returnToExistingBooks(quantities);
+        return new StockCommandResult(released, request.reservations().size() - released);
+    }
 
-        stockUpdatePublisher.publish(
-                new BookStockEvent(book.getId(), book.getTitle(), book.getStock())
-        );
+    @Override
+    @Transactional
+    public void increaseStock(UUID id, UUID idempotencyKey) {
+        if (idempotencyKey != null && !stockCommandLedger.recordOnce(idempotencyKey, id)) {
+            return;
+        }
+        returnStock(id, 1);
+        publishStockChange(findBookById(id), 1);
     }
 
     @Override
-    public void increaseStock(UUID id) {
+    @Transactional
+    public void reserveStock(StockReservationRequest request) {
+        Map<UUID, Integer> quantities = new TreeMap<>();
+        request.items().forEach(item -> quantities.merge(item.bookId(), item.quantity(), Integer::sum));
+
+        quantities.forEach(this::takeStock);
+
+        bookRepository.findAllById(quantities.keySet())
+                .forEach(book -> publishStockChange(book, -quantities.get(book.getId())));
+    }
+
+    @Override
+    @Transactional
+    public StockCommandResult applyStockCommands(StockCommandBatchRequest request) {
+        List<StockCommand> fresh = stockCommandLedger.recordNew(request.commands());
+
+        Map<UUID, Integer> quantities = new TreeMap<>();
+        fresh.forEach(command -> quantities.merge(command.bookId(), command.quantity(), Integer::sum));
+        returnToExistingBooks(quantities);
+        return new StockCommandResult(fresh.size(), request.commands().size() - fresh.size());
+    }
+
+    // Returns for books deleted in the meantime are dropped, otherwise the sender would retry them forever.
+    private void returnToExistingBooks(Map<UUID, Integer> quantities) {
+        Set<UUID> existing = bookRepository.findAllById(quantities.keySet()).stream()
+                .map(Book::getId)
+                .collect(Collectors.toSet());
+        quantities.keySet().retainAll(existing);
+        quantities.forEach(this::returnStock);
+
+        bookRepository.findAllById(quantities.keySet())
+                .forEach(book -> publishStockChange(book, quantities.get(book.getId())));
+    }
+
+    private void takeStock(UUID id, int quantity) {
+        if (bookRepository.decreaseStockIfAvailable(id, quantity) > 0) {
+            return;
+        }
+
         Book book = findBookById(id);
-        book.setStock(book.getStock() + 1);
-        bookRepository.save(book);
+        if (!book.isStockSharded() || !shardedStockManager.tryDecrease(book, quantity)) {
+            throw new OutOfStockException(id);
+        }
+    }
 
-        stockUpdatePublisher.publish(
-                new BookStockEvent(book.getId(), book.getTitle(), book.getStock())
+    private void returnStock(UUID id, int quantity) {
+        if (bookRepository.increaseStock(id, quantity) > 0) {
+            return;
+        }
+
+        Book book = findBookById(id);
+        if (book.isStockSharded()) {
+            shardedStockManager.increase(book, quantity);
+        }
+    }
+
+    private Page<BookResponse> loadPage(Page<UUID> ids) {
+        Map<UUID, BookResponse> books = bookRepository.findResponsesByIdIn(ids.getContent())
+                .stream()
+                .collect(Collectors.toMap(BookResponse::id, Function.identity()));
+
+        List<BookResponse> content = ids.getContent()
+                .stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+    }
+
+    private BookResponse publishBookChange(BookResponse response) {
+        eventPublisher.publishEvent(new BookChangedEvent(response.id(), response));
+        return response;
+    }
+
+    private void publishStockChange(Book book, int delta) {
+        int stock = book.getAvailableStock();
+        eventPublisher.publishEvent(
+                new BookStockEvent(book.getId(), book.getTitle(), stock, book.getGenre(), stock - delta)
         );
+        eventPublisher.publishEvent(new BookChangedEvent(book.getId(), bookMapper.toResponse(book)));
+    }
+
+    private Specification<Book> searchSpecification(String title, String author, String isbn, Genre genre) {
+        return Specification
+                .where(BookSpecifications.withTitle(title))
+                .and(BookSpecifications.withAuthor(author))
+                .and(BookSpecifications.withIsbn(isbn))
+                .and(BookSpecifications.withGenre(genre));
     }
 
     private Book findBookById(UUID id) {
@@ -109,15 +392,24 @@ public class BookServiceImpl implements BookService {
     }
 
     private void validateIsbnUniquenessOnCreate(String isbn) {
+        if (!isbnFilter.mightContain(isbn)) {
+            return;
+        }
         if (bookRepository.existsByIsbn(isbn)) {
             throw new IsbnAlreadyExistsException(isbn);
         }
+        isbnFilter.recordFalsePositive();
     }
 
-    private void validateIsbnUniquenessOnUpdate(String isbn, UUID id) {
-        if (bookRepository.existsByIsbnAndIdNot(isbn, id)) {
+    private void validateIsbnUniquenessOnUpdate(String isbn, Book book) {
+        // the book's own ISBN is a true hit in the filter, not a conflict
+        if (isbn.equals(book.getIsbn()) || !isbnFilter.mightContain(isbn)) {
+            return;
+        }
+        if (bookRepository.existsByIsbnAndIdNot(isbn, book.getId())) {
             throw new IsbnAlreadyExistsException(isbn);
         }
+        isbnFilter.recordFalsePositive();
     }
 
 }
\ No newline at end of file
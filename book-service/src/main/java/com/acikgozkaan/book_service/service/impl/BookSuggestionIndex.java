@@ -0,0 +1,407 @@
+package com.acikgozkaan.book_service.service.impl;
+
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.BooksImportedEvent;
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.dto.response.BookSuggestion;
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Radix trie over normalized titles and authors. Every node caches the top entries of its subtree
+ * by stock, so a lookup is a walk down the prefix and a copy of that node's list.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSuggestionIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Comparator<Entry> BY_STOCK = Comparator
+            .comparingInt((Entry entry) -> entry.stock).reversed()
+            .thenComparing(entry -> entry.title);
+
+    private final BookRepository bookRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock stockLock = new ReentrantLock();
+
+    private Trie trie = new Trie();
+    private List<BookChangedEvent> pending;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        // scan into a fresh trie without the lock; changes committed meanwhile are kept in pending
+        // and replayed onto it before the swap, so none are lost to rows already scanned
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Trie rebuilt = new Trie();
+        try {
+            List<Book> batch = bookRepository.findFirst1000ByOrderById();
+            while (!batch.isEmpty()) {
+                batch.forEach(book -> rebuilt.add(new Entry(book.getId(), book.getTitle(), book.getAuthor(),
+                        book.getAvailableStock())));
+                batch = bookRepository.findFirst1000ByIdGreaterThanOrderById(batch.getLast().getId());
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pending.forEach(event -> rebuilt.apply(event.bookId(), event.book()));
+            pending = null;
+            trie = rebuilt;
+            log.info("Book suggestion index built with {} books", rebuilt.entries.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        // most changes are borrows and returns; when the new stock keeps the book's place in every
+        // cached list, only the displayed value changes and readers do not need to be excluded.
+        // stockLock makes the rank check and the write one step, so two such changes cannot each
+        // pass against the other's old stock
+        lock.readLock().lock();
+        try {
+            if (pending == null) {
+                stockLock.lock();
+                try {
+                    if (trie.updateStockInPlace(event.bookId(), event.book())) {
+                        return;
+                    }
+                } finally {
+                    stockLock.unlock();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            trie.apply(event.bookId(), event.book());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksImported(BooksImportedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (BookResponse book : event.books()) {
+                if (pending != null) {
+                    pending.add(new BookChangedEvent(book.id(), book));
+                }
+                trie.apply(book.id(), book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = trie.root;
+            int i = 0;
+            while (i < key.length()) {
+                node = node.child(key.charAt(i));
+                if (node == null) {
+                    return List.of();
+                }
+
+                int common = commonPrefix(node.label, key, i);
+                if (common < node.label.length() && i + common < key.length()) {
+                    return List.of();
+                }
+                i += common;
+            }
+
+            return Arrays.stream(node.top)
+                    .limit(Math.clamp(limit, 1, MAX_SUGGESTIONS))
+                    .map(entry -> new BookSuggestion(entry.id, entry.title, entry.author, entry.stock))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(stripped.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    private static final class Trie {
+
+        private final Map<UUID, Entry> entries = new HashMap<>();
+        private final Node root = new Node("");
+
+        boolean updateStockInPlace(UUID id, BookResponse book) {
+            Entry existing = entries.get(id);
+            if (existing != null && book != null && sameText(existing, book) && keepsRank(existing, book.stock())) {
+                existing.stock = book.stock();
+                return true;
+            }
+            return false;
+        }
+
+        void apply(UUID id, BookResponse book) {
+            Entry existing = entries.get(id);
+            if (existing != null && book != null && sameText(existing, book)) {
+                existing.stock = book.stock();
+                refresh(normalize(existing.title));
+                refresh(normalize(existing.author));
+                return;
+            }
+
+            if (existing != null) {
+                remove(existing);
+            }
+            if (book != null) {
+                add(new Entry(book.id(), book.title(), book.author(), book.stock()));
+            }
+        }
+
+        private static boolean sameText(Entry entry, BookResponse book) {
+            return entry.title.equals(book.title()) && entry.author.equals(book.author());
+        }
+
+        private boolean keepsRank(Entry entry, int stock) {
+            return stock == entry.stock
+                    || (keepsRank(path(normalize(entry.title)), entry, stock)
+                    && keepsRank(path(normalize(entry.author)), entry, stock));
+        }
+
+        private static boolean keepsRank(List<Node> path, Entry entry, int stock) {
+            for (Node node : path) {
+                int at = Arrays.asList(node.top).indexOf(entry);
+                if (at < 0) {
+                    if (node.top.length < MAX_SUGGESTIONS
+                            || compare(stock, entry.title, node.top[node.top.length - 1]) < 0) {
+                        return false;
+                    }
+                } else if ((at > 0 && compare(stock, entry.title, node.top[at - 1]) < 0)
+                        || (at < node.top.length - 1 && compare(stock, entry.title, node.top[at + 1]) > 0)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int compare(int stock, String title, Entry other) {
+            int byStock = Integer.compare(other.stock, stock);
+            return byStock != 0 ? byStock : title.compareTo(other.title);
+        }
+
+        void add(Entry entry) {
+            entries.put(entry.id, entry);
+            recompute(insert(normalize(entry.title), entry));
+            recompute(insert(normalize(entry.author), entry));
+        }
+
+        private void remove(Entry entry) {
+            entries.remove(entry.id);
+            delete(normalize(entry.title), entry);
+            delete(normalize(entry.author), entry);
+        }
+
+        private void refresh(String key) {
+            recompute(path(key));
+        }
+
+        private List<Node> insert(String key, Entry entry) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+
+            int i = 0;
+            while (i < key.length()) {
+                Node child = node.child(key.charAt(i));
+                if (child == null) {
+                    child = new Node(key.substring(i));
+                    node.addChild(child);
+                    node = child;
+                    path.add(node);
+                    break;
+                }
+
+                int common = commonPrefix(child.label, key, i);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+                node = child;
+                path.add(node);
+                i += common;
+            }
+
+            node.terminals.add(entry);
+            return path;
+        }
+
+        private void delete(String key, Entry entry) {
+            List<Node> path = path(key);
+            Node last = path.getLast();
+            last.terminals.remove(entry);
+
+            for (int i = path.size() - 1; i > 0; i--) {
+                Node node = path.get(i);
+                Node parent = path.get(i - 1);
+                if (!node.terminals.isEmpty()) {
+                    break;
+                }
+                if (node.children.length == 0) {
+                    parent.removeChild(node);
+                } else if (node.children.length == 1) {
+                    Node child = node.children[0];
+                    child.label = node.label + child.label;
+                    parent.replaceChild(node, child);
+                    break;
+                } else {
+                    break;
+                }
+            }
+            recompute(path);
+        }
+
+        private List<Node> path(String key) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+
+            int i = 0;
+            while (i < key.length()) {
+                node = node.child(key.charAt(i));
+                path.add(node);
+                i += node.label.length();
+            }
+            return path;
+        }
+
+        private Node split(Node parent, Node child, int at) {
+            Node middle = new Node(child.label.substring(0, at));
+            child.label = child.label.substring(at);
+            middle.children = new Node[]{child};
+            middle.top = child.top;
+            parent.replaceChild(child, middle);
+            return middle;
+        }
+
+        private void recompute(List<Node> path) {
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node node = path.get(i);
+                List<Entry> candidates = new ArrayList<>(node.terminals);
+                for (Node child : node.children) {
+                    candidates.addAll(Arrays.asList(child.top));
+                }
+                node.top = candidates.stream()
+                        .distinct()
+                        .sorted(BY_STOCK)
+                        .limit(MAX_SUGGESTIONS)
+                        .toArray(Entry[]::new);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final UUID id;
+        private final String title;
+        private final String author;
+        private volatile int stock;
+
+        private Entry(UUID id, String title, String author, int stock) {
+            this.id = id;
+            this.title = title;
+            this.author = author;
+            this.stock = stock;
+        }
+    }
+
+    private static final class Node {
+
+        private String label;
+        private Node[] children = new Node[0];
+        private final List<Entry> terminals = new ArrayList<>(1);
+        private Entry[] top = NO_ENTRIES;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            for (Node child : children) {
+                if (child.label.charAt(0) == first) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        void addChild(Node child) {
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+        }
+
+        void removeChild(Node child) {
+            children = Arrays.stream(children).filter(node -> node != child).toArray(Node[]::new);
+        }
+
+        void replaceChild(Node previous, Node next) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == previous) {
+                    children[i] = next;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package com.acikgozkaan.book_service.service.impl;
+
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.BooksImportedEvent;
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over title, author and isbn. Books are addressed by dense int ordinals;
+ * updates append a new ordinal and tombstone the old one so postings stay sorted for intersection.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookTrigramIndex {
+
+    private static final int GRAM = 3;
+    private static final int MIN_COMPACTION_SIZE = 1024;
+
+    private final BookRepository bookRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${book.search.memory-index.enabled:true}")
+    private boolean enabled;
+
+    private State state = new State();
+    private List<BookChangedEvent> pending;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            log.info("In-memory book search index disabled");
+            return;
+        }
+
+        // scan into a fresh state without the lock; changes committed meanwhile are kept in
+        // pending and replayed onto it before the swap, so none are lost to rows already scanned
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State rebuilt = new State();
+        try {
+            List<Book> batch = bookRepository.findFirst1000ByOrderById();
+            while (!batch.isEmpty()) {
+                batch.forEach(book -> rebuilt.add(book.getId(), book.getTitle(), book.getAuthor(),
+                        book.getIsbn(), book.getGenre()));
+                batch = bookRepository.findFirst1000ByIdGreaterThanOrderById(batch.getLast().getId());
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            State swapped = rebuilt;
+            for (BookChangedEvent event : pending) {
+                swapped = apply(swapped, event);
+            }
+            pending = null;
+            state = swapped;
+            ready = true;
+            log.info("In-memory book search index built with {} books", swapped.liveCount);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        // borrows and returns only change stock, which is not indexed; check under the shared lock
+        lock.readLock().lock();
+        try {
+            if (pending == null && state.unchanged(event)) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+            }
+            state = apply(state, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksImported(BooksImportedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (BookResponse book : event.books()) {
+                BookChangedEvent change = new BookChangedEvent(book.id(), book);
+                if (pending != null) {
+                    pending.add(change);
+                }
+                state = apply(state, change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static State apply(State state, BookChangedEvent event) {
+        if (state.unchanged(event)) {
+            return state;
+        }
+
+        state.remove(event.bookId());
+        if (!event.isDeleted()) {
+            BookResponse book = event.book();
+            state.add(book.id(), book.title(), book.author(), book.isbn(), book.genre());
+        }
+        if (state.size > MIN_COMPACTION_SIZE && state.size - state.liveCount > state.liveCount) {
+            return state.compact();
+        }
+        return state;
+    }
+
+    /**
+     * Resolves the matching ids for one page, or empty when the query has to go to the database:
+     * index not built yet, a write in progress, a sort was requested, or no text criterion is long enough.
+     */
+    public Optional<Page<UUID>> search(String title, String author, String isbn, Genre genre, Pageable pageable) {
+        // lowered first: the length check has to see the same characters the grams are taken from
+        String[] terms = {lower(title), lower(author), lower(isbn)};
+        if (!ready || pageable.getSort().isSorted() || !indexable(terms)) {
+            return Optional.empty();
+        }
+        if (!lock.readLock().tryLock()) {
+            return Optional.empty();
+        }
+
+        try {
+            int[] candidates = state.candidates(terms);
+
+            List<UUID> page = new ArrayList<>(pageable.getPageSize());
+            long offset = pageable.getOffset();
+            int total = 0;
+            for (int ordinal : candidates) {
+                if (!state.matches(ordinal, terms, genre)) {
+                    continue;
+                }
+                if (total >= offset && page.size() < pageable.getPageSize()) {
+                    page.add(state.ids[ordinal]);
+                }
+                total++;
+            }
+            return Optional.of(new PageImpl<>(page, pageable, total));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean indexable(String[] terms) {
+        boolean any = false;
+        for (String term : terms) {
+            if (term == null) {
+                continue;
+            }
+            if (term.length() < GRAM) {
+                return false;
+            }
+            any = true;
+        }
+        return any;
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class State {
+
+        private final OrdinalTable ordinals = new OrdinalTable();
+        private final FieldIndex[] fields = {new FieldIndex(), new FieldIndex(), new FieldIndex()};
+        private UUID[] ids = new UUID[1024];
+        private byte[] genres = new byte[1024];
+        private final BitSet live = new BitSet();
+        private int size;
+        private int liveCount;
+
+        void add(UUID id, String title, String author, String isbn, Genre genre) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                genres = Arrays.copyOf(genres, size * 2);
+            }
+
+            int ordinal = size++;
+            ids[ordinal] = id;
+            genres[ordinal] = (byte) genre.ordinal();
+            fields[0].add(ordinal, lower(title));
+            fields[1].add(ordinal, lower(author));
+            fields[2].add(ordinal, lower(isbn));
+            live.set(ordinal);
+            ordinals.put(id, ordinal);
+            liveCount++;
+        }
+
+        boolean unchanged(BookChangedEvent event) {
+            int ordinal = ordinals.get(event.bookId());
+            BookResponse book = event.book();
+            return ordinal >= 0 && book != null
+                    && genres[ordinal] == book.genre().ordinal()
+                    && fields[0].values[ordinal].equals(lower(book.title()))
+                    && fields[1].values[ordinal].equals(lower(book.author()))
+                    && fields[2].values[ordinal].equals(lower(book.isbn()));
+        }
+
+        void remove(UUID id) {
+            int ordinal = ordinals.remove(id);
+            if (ordinal >= 0) {
+                live.clear(ordinal);
+                liveCount--;
+            }
+        }
+
+        State compact() {
+            State compacted = new State();
+            for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+                compacted.add(ids[ordinal], fields[0].values[ordinal], fields[1].values[ordinal],
+                        fields[2].values[ordinal], Genre.values()[genres[ordinal]]);
+            }
+            return compacted;
+        }
+
+        int[] candidates(String[] terms) {
+            List<Postings> lists = new ArrayList<>();
+            for (int field = 0; field < fields.length; field++) {
+                if (terms[field] == null) {
+                    continue;
+                }
+                for (long gram : grams(terms[field])) {
+                    Postings postings = fields[field].grams.get(gram);
+                    if (postings == null) {
+                        return new int[0];
+                    }
+                    lists.add(postings);
+                }
+            }
+
+            lists.sort(Comparator.comparingInt(postings -> postings.size));
+            int[] result = Arrays.copyOf(lists.getFirst().values, lists.getFirst().size);
+            int length = result.length;
+            for (int i = 1; i < lists.size() && length > 0; i++) {
+                length = intersect(result, length, lists.get(i));
+            }
+            return Arrays.copyOf(result, length);
+        }
+
+        boolean matches(int ordinal, String[] terms, Genre genre) {
+            if (!live.get(ordinal) || (genre != null && genres[ordinal] != genre.ordinal())) {
+                return false;
+            }
+            for (int field = 0; field < fields.length; field++) {
+                if (terms[field] != null && !fields[field].values[ordinal].contains(terms[field])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int intersect(int[] target, int length, Postings other) {
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < length && j < other.size; i++) {
+                while (j < other.size && other.values[j] < target[i]) {
+                    j++;
+                }
+                if (j < other.size && other.values[j] == target[i]) {
+                    target[kept++] = target[i];
+                }
+            }
+            return kept;
+        }
+    }
+
+    private static final class FieldIndex {
+
+        private final GramTable grams = new GramTable();
+        private String[] values = new String[1024];
+
+        void add(int ordinal, String value) {
+            if (ordinal == values.length) {
+                values = Arrays.copyOf(values, ordinal * 2);
+            }
+            values[ordinal] = value;
+            for (long gram : grams(value)) {
+                grams.getOrCreate(gram).add(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Open-addressing map from book id to ordinal, kept as two long arrays and an int array so a
+     * multi-million book catalog does not carry a boxed key and value per entry. -1 marks a free slot.
+     */
+    private static final class OrdinalTable {
+
+        private long[] most = new long[16];
+        private long[] least = new long[16];
+        private int[] values = free(16);
+        private int size;
+
+        int get(UUID id) {
+            int i = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            return i < 0 ? -1 : values[i];
+        }
+
+        void put(UUID id, int ordinal) {
+            if ((size + 1) * 2 > values.length) {
+                resize();
+            }
+            if (insert(id.getMostSignificantBits(), id.getLeastSignificantBits(), ordinal)) {
+                size++;
+            }
+        }
+
+        int remove(UUID id) {
+            int gap = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (gap < 0) {
+                return -1;
+            }
+            int removed = values[gap];
+
+            // shift later entries of the probe run back, so lookups never need tombstones
+            int mask = values.length - 1;
+            for (int j = (gap + 1) & mask; values[j] >= 0; j = (j + 1) & mask) {
+                int home = slot(most[j], least[j], mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    most[gap] = most[j];
+                    least[gap] = least[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            values[gap] = -1;
+            size--;
+            return removed;
+        }
+
+        private int find(long msb, long lsb) {
+            int mask = values.length - 1;
+            for (int i = slot(msb, lsb, mask); values[i] >= 0; i = (i + 1) & mask) {
+                if (most[i] == msb && least[i] == lsb) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean insert(long msb, long lsb, int ordinal) {
+            int mask = values.length - 1;
+            int i = slot(msb, lsb, mask);
+            while (values[i] >= 0) {
+                if (most[i] == msb && least[i] == lsb) {
+                    values[i] = ordinal;
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            most[i] = msb;
+            least[i] = lsb;
+            values[i] = ordinal;
+            return true;
+        }
+
+        private void resize() {
+            long[] oldMost = most;
+            long[] oldLeast = least;
+            int[] oldValues = values;
+            most = new long[oldValues.length * 2];
+            least = new long[oldValues.length * 2];
+            values = free(oldValues.length * 2);
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] >= 0) {
+                    insert(oldMost[i], oldLeast[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long msb, long lsb, int mask) {
+            return mix(msb ^ lsb) & mask;
+        }
+
+        private static int[] free(int length) {
+            int[] values = new int[length];
+            Arrays.fill(values, -1);
+            return values;
+        }
+    }
+
+    /** Open-addressing map from packed trigram to postings; grams are never removed, only compacted away. */
+    private static final class GramTable {
+
+        private long[] keys = new long[16];
+        private Postings[] values = new Postings[16];
+        private int size;
+
+        Postings get(long gram) {
+            int mask = values.length - 1;
+            for (int i = mix(gram) & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == gram) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        Postings getOrCreate(long gram) {
+            Postings postings = get(gram);
+            if (postings != null) {
+                return postings;
+            }
+            if ((size + 1) * 2 > values.length) {
+                resize();
+            }
+            postings = new Postings();
+            insert(gram, postings);
+            size++;
+            return postings;
+        }
+
+        private void insert(long gram, Postings postings) {
+            int mask = values.length - 1;
+            int i = mix(gram) & mask;
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = gram;
+            values[i] = postings;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Postings[oldValues.length * 2];
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Postings {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            if (size > 0 && values[size - 1] == ordinal) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = ordinal;
+        }
+    }
+
+    private static long[] grams(String value) {
+        int count = Math.max(0, value.length() - GRAM + 1);
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = ((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2);
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,208 @@
+package com.acikgozkaan.book_service.service.impl;
+
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.BooksImportedEvent;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over every ISBN in the catalog, consulted before the uniqueness queries: a miss
+ * proves the ISBN is free, a hit still goes to the database. Until the first build finishes every
+ * ISBN counts as a possible hit. Deleted or renamed ISBNs cannot be cleared from a Bloom filter,
+ * so their bits linger as extra false positives until enough deletes trigger a rebuild; the
+ * unique constraint on {@code books.isbn} stays the final guard either way.
+ */
+@Slf4j
+@Component
+public class IsbnBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Counter skipped;
+    private final Counter queried;
+    private final Counter falsePositives;
+    private final AtomicLong staleEntries = new AtomicLong();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile Bits current;
+    private volatile Bits building;
+
+    public IsbnBloomFilter(
+            BookRepository bookRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${book.isbn-filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${book.isbn-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.skipped = Counter.builder("book.isbn.filter.checks").tag("result", "miss").register(meterRegistry);
+        this.queried = Counter.builder("book.isbn.filter.checks").tag("result", "maybe").register(meterRegistry);
+        this.falsePositives = Counter.builder("book.isbn.filter.false.positives").register(meterRegistry);
+        Gauge.builder("book.isbn.filter.memory", this, filter -> filter.current == null ? 0 : filter.current.bytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("book.isbn.filter.entries", this, filter -> filter.current == null ? 0 : filter.current.entries.get())
+                .register(meterRegistry);
+        Gauge.builder("book.isbn.filter.expected.fpp", this,
+                        filter -> filter.current == null ? 1 : filter.current.expectedFalsePositiveRate())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long count = bookRepository.count();
+            Bits next = Bits.sized(Math.max(expectedInsertions, count * 2), falsePositiveRate);
+            building = next;
+            staleEntries.set(0);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> isbns = bookRepository.streamAllIsbns()) {
+                    isbns.forEach(next::add);
+                }
+            });
+
+            current = next;
+            log.info("ISBN filter built with {} entries in {} KiB", next.entries.get(), next.bytes() / 1024);
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.isDeleted()) {
+            Bits bits = current;
+            if (bits != null && staleEntries.incrementAndGet() > bits.entries.get() / 4 + 1000) {
+                Thread.ofVirtual().name("isbn-filter-rebuild").start(this::rebuild);
+            }
+            return;
+        }
+        add(event.book().isbn());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooksImported(BooksImportedEvent event) {
+        event.books().forEach(book -> add(book.isbn()));
+    }
+
+    public void add(String isbn) {
+        Bits next = building;
+        if (next != null) {
+            next.add(isbn);
+        }
+        Bits bits = current;
+        if (bits != null) {
+            bits.add(isbn);
+        }
+    }
+
+    public boolean mightContain(String isbn) {
+        Bits bits = current;
+        boolean maybe = bits == null || bits.mightContain(isbn);
+        (maybe ? queried : skipped).increment();
+        return maybe;
+    }
+
+    /** Called when a possible hit turned out to be free, so the observed rate can be compared to the expected one. */
+    public void recordFalsePositive() {
+        recordFalsePositives(1);
+    }
+
+    public void recordFalsePositives(long count) {
+        falsePositives.increment(count);
+    }
+
+    private static final class Bits {
+
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private final AtomicLong entries = new AtomicLong();
+
+        private Bits(long size, int hashes) {
+            this.words = new AtomicLongArray(Math.toIntExact((size + 63) / 64));
+            this.size = size;
+            this.hashes = hashes;
+        }
+
+        static Bits sized(long insertions, double falsePositiveRate) {
+            long size = Math.max(64, (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (LN2 * LN2)));
+            int hashes = Math.max(1, (int) Math.round((double) size / insertions * LN2));
+            return new Bits(size, hashes);
+        }
+
+        void add(String isbn) {
+            long hash1 = hash(isbn, 0x9E3779B97F4A7C15L);
+            long hash2 = hash(isbn, 0xC2B2AE3D27D4EB4FL) | 1;
+            boolean changed = false;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long previous = words.getAndAccumulate(word, mask, (value, m) -> value | m);
+                changed |= (previous & mask) == 0;
+            }
+            if (changed) {
+                entries.incrementAndGet();
+            }
+        }
+
+        boolean mightContain(String isbn) {
+            long hash1 = hash(isbn, 0x9E3779B97F4A7C15L);
+            long hash2 = hash(isbn, 0xC2B2AE3D27D4EB4FL) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long bytes() {
+            return words.length() * 8L;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-hashes * (double) entries.get() / size), hashes);
+        }
+
+        private static long hash(String value, long seed) {
+            long hash = seed;
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+            hash *= 0xC4CEB9FE1A85EC53L;
+            return hash ^ (hash >>> 33);
+        }
+    }
+}
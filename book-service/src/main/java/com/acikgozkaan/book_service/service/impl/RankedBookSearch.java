@@ -0,0 +1,64 @@
+package com.acikgozkaan.book_service.service.impl;
+
+import com.acikgozkaan.book_service.config.BookSearchIndexInitializer;
+import com.acikgozkaan.book_service.config.BookSpecifications;
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class RankedBookSearch {
+
+    private final BookRepository bookRepository;
+    private final BookSearchIndexInitializer searchIndex;
+
+    public List<BookResponse> search(String query, Genre genre, int limit) {
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        if (searchIndex.isFullTextAvailable()) {
+            List<UUID> ids = bookRepository.findRankedIds(query, genre == null ? null : genre.name(), limit);
+            return inIdOrder(ids, bookRepository.findResponsesByIdIn(ids));
+        }
+        return likeRanked(terms, genre, limit);
+    }
+
+    private List<BookResponse> likeRanked(List<String> terms, Genre genre, int limit) {
+        Specification<Book> spec = Specification.where(BookSpecifications.withGenre(genre));
+        for (String term : terms) {
+            spec = spec.and(BookSpecifications.withAnyText(term));
+        }
+
+        return bookRepository.findResponsesByRelevance(spec, terms, limit);
+    }
+
+    private List<BookResponse> inIdOrder(List<UUID> ids, List<BookResponse> books) {
+        Map<UUID, BookResponse> byId = books.stream()
+                .collect(Collectors.toMap(BookResponse::id, Function.identity()));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private List<String> terms(String query) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(query.toLowerCase().trim().split("\\s+"))
+                .distinct()
+                .toList();
+    }
+}
@@ -0,0 +1,82 @@
+package com.acikgozkaan.book_service.service.impl;
+
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.entity.BookStockSlot;
+import com.acikgozkaan.book_service.repository.BookStockSlotRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+@RequiredArgsConstructor
+public class ShardedStockManager {
+
+    private final BookStockSlotRepository slotRepository;
+
+    public boolean tryDecrease(Book book, int quantity) {
+        if (quantity == 1) {
+            return tryDecrease(book);
+        }
+
+        // every slot row stays locked until commit, so several copies are taken in ascending slot
+        // order; two multi-copy reservations then cannot each hold a slot the other is waiting for
+        int remaining = quantity;
+        for (int slot = 0; slot < book.getStockSlots() && remaining > 0; slot++) {
+            while (remaining > 0 && slotRepository.decreaseSlotIfAvailable(book.getId(), slot) > 0) {
+                remaining--;
+            }
+        }
+        return remaining == 0;
+    }
+
+    public boolean tryDecrease(Book book) {
+        int slots = book.getStockSlots();
+        int start = ThreadLocalRandom.current().nextInt(slots);
+
+        for (int i = 0; i < slots; i++) {
+            if (slotRepository.decreaseSlotIfAvailable(book.getId(), (start + i) % slots) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void increase(Book book, int quantity) {
+        // one statement on one slot, so a return never holds more than a single slot lock
+        int slot = ThreadLocalRandom.current().nextInt(book.getStockSlots());
+        slotRepository.increaseSlot(book.getId(), slot, quantity);
+    }
+
+    public void rebalance(Book book) {
+        slotRepository.deleteByBookId(book.getId());
+
+        if (!book.isStockSharded()) {
+            book.setSlotStockTotal(null);
+            return;
+        }
+
+        int slots = book.getStockSlots();
+        int base = book.getStock() / slots;
+        int remainder = book.getStock() % slots;
+
+        List<BookStockSlot> stockSlots = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            stockSlots.add(BookStockSlot.builder()
+                    .bookId(book.getId())
+                    .slot(slot)
+                    .stock(base + (slot < remainder ? 1 : 0))
+                    .build());
+        }
+
+        slotRepository.saveAll(stockSlots);
+        book.setSlotStockTotal(book.getStock());
+    }
+
+    public void remove(UUID bookId) {
+        slotRepository.deleteByBookId(bookId);
+    }
+}
@@ -0,0 +1,80 @@
+package com.acikgozkaan.book_service.service.impl;
+
+import com.acikgozkaan.book_service.dto.request.StockCommand;
+import com.acikgozkaan.book_service.entity.ProcessedStockCommand;
+import com.acikgozkaan.book_service.repository.ProcessedStockCommandRepository;
+import com.acikgozkaan.book_service.repository.StockReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Remembers which stock commands were already applied so a sender retrying after a lost response
+ * does not move stock twice. Entries and settled reservations are kept for the retention window,
+ * which has to outlast the sender's longest retry; expired ones are pruned at most once per hour
+ * on the write path.
+ */
+@Slf4j
+@Component
+public class StockCommandLedger {
+
+    private static final Duration PRUNE_INTERVAL = Duration.ofHours(1);
+
+    private final ProcessedStockCommandRepository repository;
+    private final StockReservationRepository reservationRepository;
+    private final Duration retention;
+    private final AtomicReference<Instant> lastPruned = new AtomicReference<>(Instant.EPOCH);
+
+    public StockCommandLedger(
+            ProcessedStockCommandRepository repository,
+            StockReservationRepository reservationRepository,
+            @Value("${book.stock-commands.retention:7d}") Duration retention) {
+        this.repository = repository;
+        this.reservationRepository = reservationRepository;
+        this.retention = retention;
+    }
+
+    /**
+     * Records the commands not seen before and returns them; must run in the transaction that
+     * applies them, so a rollback forgets them again. A concurrent delivery of the same command
+     * fails that transaction on the primary key instead of applying twice.
+     */
+    public List<StockCommand> recordNew(List<StockCommand> commands) {
+        Map<UUID, StockCommand> byId = new LinkedHashMap<>();
+        commands.forEach(command -> byId.putIfAbsent(command.id(), command));
+        repository.findProcessedIds(byId.keySet()).forEach(byId::remove);
+
+        Instant now = Instant.now();
+        repository.saveAll(byId.values().stream()
+                .map(command -> ProcessedStockCommand.builder()
+                        .id(command.id())
+                        .bookId(command.bookId())
+                        .processedAt(now)
+                        .build())
+                .toList());
+        pruneIfDue(now);
+        return List.copyOf(byId.values());
+    }
+
+    /** Single-command form of {@link #recordNew}; returns false when the key was already applied. */
+    public boolean recordOnce(UUID key, UUID bookId) {
+        return !recordNew(List.of(new StockCommand(key, bookId, 1))).isEmpty();
+    }
+
+    private void pruneIfDue(Instant now) {
+        Instant previous = lastPruned.get();
+        if (previous.plus(PRUNE_INTERVAL).isAfter(now) || !lastPruned.compareAndSet(previous, now)) {
+            return;
+        }
+        Instant cutoff = now.minus(retention);
+        int pruned = repository.deleteProcessedBefore(cutoff) + reservationRepository.deleteUpdatedBefore(cutoff);
+        if (pruned > 0) {
+            log.info("Pruned {} stock command and reservation records older than {}", pruned, retention);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.acikgozkaan.book_service.stream;
+
+import com.acikgozkaan.book_service.config.StockFrameBroadcaster;
+import com.acikgozkaan.book_service.config.StockUpdatePublisher;
+import com.acikgozkaan.book_service.dto.StockSubscription;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.security.JwtService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Serves the stock streams from a separate Reactor Netty listener so long-lived watchers do not
+ * hold Tomcat threads or async slots used by the CRUD endpoints. Connections are capped, kept
+ * alive with SSE comment heartbeats, and closed when a write cannot complete within the write
+ * timeout, which evicts clients that stopped reading.
+ */
+@Slf4j
+@Component
+public class StockStreamServer {
+
+    static final String STOCK_PATH = "/api/v1/books/stream/stock";
+    static final String FRAMES_PATH = STOCK_PATH + "/frames";
+
+    private static final String HEARTBEAT = ": heartbeat\n\n";
+
+    private final StockUpdatePublisher stockUpdatePublisher;
+    private final StockFrameBroadcaster frameBroadcaster;
+    private final JwtService jwtService;
+    private final ObjectMapper objectMapper;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter rejected;
+
+    private final boolean enabled;
+    private final int port;
+    private final int maxConnections;
+    private final Duration heartbeat;
+    private final Duration writeTimeout;
+
+    private DisposableServer server;
+
+    public StockStreamServer(
+            StockUpdatePublisher stockUpdatePublisher,
+            StockFrameBroadcaster frameBroadcaster,
+            JwtService jwtService,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${book.stream-server.enabled:true}") boolean enabled,
+            @Value("${book.stream-server.port:8092}") int port,
+            @Value("${book.stream-server.max-connections:10000}") int maxConnections,
+            @Value("${book.stream-server.heartbeat:15s}") Duration heartbeat,
+            @Value("${book.stream-server.write-timeout:30s}") Duration writeTimeout) {
+        this.stockUpdatePublisher = stockUpdatePublisher;
+        this.frameBroadcaster = frameBroadcaster;
+        this.jwtService = jwtService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.port = port;
+        this.maxConnections = maxConnections;
+        this.heartbeat = heartbeat;
+        this.writeTimeout = writeTimeout;
+        this.rejected = Counter.builder("book.stream.server.rejected").register(meterRegistry);
+        Gauge.builder("book.stream.server.connections", connections, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Dedicated stock stream server disabled");
+            return;
+        }
+
+        server = HttpServer.create()
+                .port(port)
+                .doOnConnection(connection -> connection.addHandlerLast(
+                        new WriteTimeoutHandler(writeTimeout.toMillis(), TimeUnit.MILLISECONDS)))
+                .route(routes -> routes
+                        .get(FRAMES_PATH, (request, response) -> stream(request, response, this::frames))
+                        .get(STOCK_PATH, (request, response) -> stream(request, response, this::events)))
+                .bindNow();
+        log.info("Stock stream server listening on port {}", server.port());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    public int port() {
+        return server.port();
+    }
+
+    private Publisher<Void> stream(HttpServerRequest request, HttpServerResponse response,
+                                   BiFunction<StockSubscription, Long, Flux<String>> source) {
+        if (!authenticated(request)) {
+            return response.status(HttpResponseStatus.UNAUTHORIZED).send();
+        }
+
+        StockSubscription subscription;
+        Long lastEventId;
+        try {
+            subscription = subscription(new QueryStringDecoder(request.uri()).parameters());
+            String lastId = request.requestHeaders().get("Last-Event-ID");
+            lastEventId = lastId == null ? null : Long.valueOf(lastId);
+        } catch (IllegalArgumentException e) {
+            return response.status(HttpResponseStatus.BAD_REQUEST).sendString(Mono.just(e.getMessage()));
+        }
+
+        // take and release the slot on the same subscription, so a client that disconnects before
+        // the body is subscribed still gives its slot back
+        return Mono.defer(() -> {
+            if (connections.incrementAndGet() > maxConnections) {
+                connections.decrementAndGet();
+                rejected.increment();
+                return response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send();
+            }
+
+            Flux<String> body = Flux.merge(
+                    source.apply(subscription, lastEventId),
+                    Flux.interval(heartbeat).map(tick -> HEARTBEAT));
+
+            return Mono.from(response
+                            .header(HttpHeaderNames.CONTENT_TYPE, "text/event-stream")
+                            .header(HttpHeaderNames.CACHE_CONTROL, "no-cache")
+                            .sendString(body))
+                    .doFinally(signal -> connections.decrementAndGet());
+        });
+    }
+
+    private Flux<String> events(StockSubscription subscription, Long lastEventId) {
+        return stockUpdatePublisher.getStream(subscription, lastEventId).map(this::encode);
+    }
+
+    private Flux<String> frames(StockSubscription subscription, Long lastEventId) {
+        return frameBroadcaster.getFrames(subscription).map(this::encode);
+    }
+
+    private String encode(ServerSentEvent<?> event) {
+        StringBuilder sse = new StringBuilder();
+        if (event.id() != null) {
+            sse.append("id:").append(event.id()).append('\n');
+        }
+        if (event.event() != null) {
+            sse.append("event:").append(event.event()).append('\n');
+        }
+        if (event.data() != null) {
+            sse.append("data:").append(json(event.data())).append('\n');
+        }
+        return sse.append('\n').toString();
+    }
+
+    private String json(Object data) {
+        if (data instanceof String text) {
+            return text;
+        }
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize stock event", e);
+        }
+    }
+
+    private boolean authenticated(HttpServerRequest request) {
+        // tokens are only accepted from the header; query strings end up in access logs and proxies
+        String header = request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION);
+        if (header == null || !header.startsWith("Bearer ")) {
+            return false;
+        }
+
+        try {
+            Claims claims = jwtService.getClaims(header.substring(7));
+            return claims.getSubject() != null && claims.get("role", String.class) != null;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected stock stream token: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private StockSubscription subscription(Map<String, List<String>> parameters) {
+        Set<UUID> bookIds = new HashSet<>();
+        parameters.getOrDefault("bookIds", List.of()).stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .filter(value -> !value.isBlank())
+                .map(UUID::fromString)
+                .forEach(bookIds::add);
+
+        String genre = first(parameters, "genre");
+        return new StockSubscription(
+                bookIds,
+                genre == null ? null : Genre.valueOf(genre),
+                Boolean.parseBoolean(first(parameters, "zeroTransitionsOnly")));
+    }
+
+    private static String first(Map<String, List<String>> parameters, String name) {
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? null : values.getFirst();
+    }
+}
@@ -0,0 +1,68 @@
+package com.acikgozkaan.book_service.integration;
+
+import com.acikgozkaan.book_service.bus.PostgresBookChangeBus;
+import com.acikgozkaan.book_service.bus.RemoteBookChangesEvent;
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.context.ApplicationEventPublisher;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@Testcontainers(disabledWithoutDocker = true)
+class BookChangeBusPostgresTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private final ApplicationEventPublisher writerEvents = mock(ApplicationEventPublisher.class);
+    private final ApplicationEventPublisher readerEvents = mock(ApplicationEventPublisher.class);
+
+    private PostgresBookChangeBus writer;
+    private PostgresBookChangeBus reader;
+
+    @BeforeEach
+    void setUp() {
+        writer = new PostgresBookChangeBus(dataSource(), writerEvents, true, Duration.ofMillis(50));
+        reader = new PostgresBookChangeBus(dataSource(), readerEvents, true, Duration.ofMillis(50));
+        writer.start();
+        reader.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+        reader.stop();
+    }
+
+    @Test
+    void shouldDeliverDedupedChangesToOtherReplicas() throws Exception {
+        UUID bookId = UUID.randomUUID();
+        Thread.sleep(200);
+
+        for (int i = 0; i < 20; i++) {
+            writer.onBookChanged(BookChangedEvent.deleted(bookId));
+        }
+
+        verify(readerEvents, timeout(5000)).publishEvent(new RemoteBookChangesEvent(Set.of(bookId)));
+        verify(writerEvents, after(300).never()).publishEvent(any(RemoteBookChangesEvent.class));
+    }
+
+    private PGSimpleDataSource dataSource() {
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUser(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        return dataSource;
+    }
+}
@@ -1,7 +1,16 @@
 package com.acikgozkaan.book_service.integration;
 
+import com.acikgozkaan.book_service.config.StockUpdatePublisher;
+import com.acikgozkaan.book_service.dto.BookStockEvent;
 import com.acikgozkaan.book_service.dto.request.BookRequest;
+import com.acikgozkaan.book_service.dto.request.ReservationRelease;
+import com.acikgozkaan.book_service.dto.request.ReservationReleaseRequest;
+import com.acikgozkaan.book_service.dto.request.StockCommand;
+import com.acikgozkaan.book_service.dto.request.StockCommandBatchRequest;
+import com.acikgozkaan.book_service.dto.request.StockReservationItem;
+import com.acikgozkaan.book_service.dto.request.StockReservationRequest;
 import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.service.BookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,11 +22,17 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -28,6 +43,9 @@ class BookControllerTest {
 
     @Autowired private MockMvc mockMvc;
     @Autowired private ObjectMapper objectMapper;
+    @Autowired private BookService bookService;
+    @Autowired private StockUpdatePublisher stockUpdatePublisher;
+    @Autowired private TransactionTemplate transactionTemplate;
 
     private static final String LIBRARIAN_EMAIL = "admin@getir.com";
     private static final String PATRON_EMAIL = "patron@getir.com";
@@ -171,6 +189,516 @@ class BookControllerTest {
                 );
     }
 
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldPageSearchResultsWithCursor() throws Exception {
+        String prefix = "Keyset " + UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < 3; i++) {
+            createBook(new BookRequest(prefix + " " + i, "Author", UUID.randomUUID().toString().substring(0, 13),
+                    2020, Genre.HISTORY, 1));
+        }
+
+        String firstPage = mockMvc.perform(get(API_V1_BOOKS + "/search")
+                        .param("title", prefix)
+                        .param("cursor", "")
+                        .param("size", "2"))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.content", hasSize(2)),
+                        jsonPath("$.content[0].title", is(prefix + " 0")),
+                        jsonPath("$.hasNext", is(true)),
+                        jsonPath("$.totalElements").doesNotExist()
+                )
+                .andReturn().getResponse().getContentAsString();
+
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get(API_V1_BOOKS + "/search")
+                        .param("title", prefix)
+                        .param("cursor", cursor)
+                        .param("size", "2"))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.content", hasSize(1)),
+                        jsonPath("$.content[0].title", is(prefix + " 2")),
+                        jsonPath("$.hasNext", is(false))
+                );
+    }
+
+    @Test
+    @WithMockUser(roles = {"LIBRARIAN", "PATRON"})
+    void shouldSuggestByPrefixOrderedByStock() throws Exception {
+        String prefix = "Suggest" + UUID.randomUUID().toString().substring(0, 6);
+        UUID scarce = createBook(new BookRequest(prefix + " Alpha", "Author", UUID.randomUUID().toString().substring(0, 13),
+                2020, Genre.HISTORY, 1));
+        createBook(new BookRequest(prefix + " Beta", "Author", UUID.randomUUID().toString().substring(0, 13),
+                2020, Genre.HISTORY, 7));
+
+        mockMvc.perform(get(API_V1_BOOKS + "/suggest")
+                        .param("q", prefix.toLowerCase()))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$", hasSize(2)),
+                        jsonPath("$[0].title", is(prefix + " Beta")),
+                        jsonPath("$[1].id", is(scarce.toString()))
+                );
+
+        mockMvc.perform(put(API_V1_BOOKS + "/" + scarce + "/decrease-stock"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(API_V1_BOOKS + "/suggest")
+                        .param("q", prefix + " al"))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$", hasSize(1)),
+                        jsonPath("$[0].stock", is(0))
+                );
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldKeepSubstringSearchInSyncWithUpdates() throws Exception {
+        String marker = "idx" + UUID.randomUUID().toString().substring(0, 8);
+        String isbn = UUID.randomUUID().toString().substring(0, 13);
+        UUID bookId = createBook(new BookRequest("The " + marker + " Almanac", "Author", isbn, 2020, Genre.HISTORY, 1));
+
+        mockMvc.perform(get(API_V1_BOOKS + "/search")
+                        .param("title", marker.toUpperCase()))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.content", hasSize(1)),
+                        jsonPath("$.content[0].id", is(bookId.toString())),
+                        jsonPath("$.totalElements", is(1))
+                );
+
+        mockMvc.perform(put(API_V1_BOOKS + "/" + bookId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new BookRequest("Renamed Almanac", "Author", isbn, 2020, Genre.HISTORY, 1))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(API_V1_BOOKS + "/search")
+                        .param("title", marker))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.content", hasSize(0))
+                );
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldRankTitleMatchesFirstForMultiWordQuery() throws Exception {
+        String word = "ranked" + UUID.randomUUID().toString().substring(0, 8);
+        createBook(new BookRequest("Notes", word + " Writer", UUID.randomUUID().toString().substring(0, 13),
+                2020, Genre.HISTORY, 1));
+        createBook(new BookRequest(word + " Atlas", "Someone", UUID.randomUUID().toString().substring(0, 13),
+                2020, Genre.HISTORY, 1));
+        createBook(new BookRequest(word + " Only", "Nobody", UUID.randomUUID().toString().substring(0, 13),
+                2020, Genre.HISTORY, 1));
+
+        mockMvc.perform(get(API_V1_BOOKS + "/search")
+                        .param("q", word + " writer"))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$", hasSize(1)),
+                        jsonPath("$[0].title", is("Notes"))
+                );
+
+        mockMvc.perform(get(API_V1_BOOKS + "/search")
+                        .param("q", word + " atlas"))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$", hasSize(1)),
+                        jsonPath("$[0].title", is(word + " Atlas"))
+                );
+
+        mockMvc.perform(get(API_V1_BOOKS + "/search")
+                        .param("q", word)
+                        .param("genre", "HISTORY"))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$", hasSize(3)),
+                        jsonPath("$[2].title", is("Notes"))
+                );
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldScoreRankedMatchesBeforeApplyingLimit() throws Exception {
+        String word = "scored" + UUID.randomUUID().toString().substring(0, 8);
+        createBook(new BookRequest("Aardvark", word + " Writer", UUID.randomUUID().toString().substring(0, 13),
+                2020, Genre.HISTORY, 1));
+        createBook(new BookRequest("Zebra " + word, "Someone", UUID.randomUUID().toString().substring(0, 13),
+                2020, Genre.HISTORY, 1));
+
+        mockMvc.perform(get(API_V1_BOOKS + "/search")
+                        .param("q", word)
+                        .param("limit", "1"))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$", hasSize(1)),
+                        jsonPath("$[0].title", is("Zebra " + word))
+                );
+    }
+
+    @Test
+    @WithMockUser(roles = {"LIBRARIAN", "PATRON"})
+    void shouldReserveStockForSeveralBooks() throws Exception {
+        UUID first = createBook(sampleBookRequest());
+        UUID second = createBook(sampleBookRequest());
+
+        StockReservationRequest reservation = new StockReservationRequest(List.of(
+                new StockReservationItem(first, 2),
+                new StockReservationItem(second, 1)
+        ));
+
+        mockMvc.perform(post(API_V1_BOOKS + "/reserve-stock")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reservation)))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(API_V1_BOOKS + "/" + first))
+                .andExpect(jsonPath("$.stock", is(2)));
+        mockMvc.perform(get(API_V1_BOOKS + "/" + second))
+                .andExpect(jsonPath("$.stock", is(3)));
+    }
+
+    @Test
+    @WithMockUser(roles = {"LIBRARIAN", "PATRON"})
+    void shouldNotReserveAnyStockWhenOneBookIsShort() throws Exception {
+        UUID available = createBook(sampleBookRequest());
+        UUID scarce = createBook(sampleBookRequest());
+
+        StockReservationRequest reservation = new StockReservationRequest(List.of(
+                new StockReservationItem(available, 1),
+                new StockReservationItem(scarce, 5)
+        ));
+
+        mockMvc.perform(post(API_V1_BOOKS + "/reserve-stock")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(reservation)))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get(API_V1_BOOKS + "/" + available))
+                .andExpect(jsonPath("$.stock", is(4)));
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldAnswerNotModifiedUntilBookChanges() throws Exception {
+        UUID bookId = createBook(sampleBookRequest());
+
+        String etag = mockMvc.perform(get(API_V1_BOOKS + "/" + bookId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get(API_V1_BOOKS + "/" + bookId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put(API_V1_BOOKS + "/" + bookId + "/decrease-stock").with(user("patron").roles("PATRON")))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(API_V1_BOOKS + "/" + bookId).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.stock", is(3)));
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldRejectUpdateWithStaleIfMatch() throws Exception {
+        UUID bookId = createBook(sampleBookRequest());
+        String etag = mockMvc.perform(get(API_V1_BOOKS + "/" + bookId))
+                .andReturn().getResponse().getHeader("ETag");
+
+        BookRequest first = new BookRequest("First", "Author", UUID.randomUUID().toString().substring(0, 13),
+                2020, Genre.HISTORY, 4);
+        mockMvc.perform(put(API_V1_BOOKS + "/" + bookId)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(first)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+
+        BookRequest second = new BookRequest("Second", "Author", first.isbn(), 2020, Genre.HISTORY, 4);
+        mockMvc.perform(put(API_V1_BOOKS + "/" + bookId)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(second)))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get(API_V1_BOOKS + "/" + bookId))
+                .andExpect(jsonPath("$.title", is("First")));
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldRevalidateSearchAgainstCatalogGeneration() throws Exception {
+        String etag = mockMvc.perform(get(API_V1_BOOKS + "/search").param("genre", "SCIENCE"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get(API_V1_BOOKS + "/search").param("genre", "SCIENCE").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(API_V1_BOOKS + "/search").param("genre", "HISTORY").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+
+        createBook(sampleBookRequest());
+
+        mockMvc.perform(get(API_V1_BOOKS + "/search").param("genre", "SCIENCE").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles = {"LIBRARIAN", "PATRON"})
+    void shouldExportCatalogAsNdjson() throws Exception {
+        UUID first = createBook(sampleBookRequest());
+        UUID second = createBook(sampleBookRequest());
+
+        MvcResult pending = mockMvc.perform(get(API_V1_BOOKS).accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(endsWith("\n")))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> ids = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            ids.add(objectMapper.readTree(line).get("id").asText());
+        }
+        assertThat(ids, hasItems(first.toString(), second.toString()));
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldImportCsvAndReportRejectedRows() throws Exception {
+        BookRequest existing = sampleBookRequest();
+        createBook(existing);
+        String isbn = UUID.randomUUID().toString().substring(0, 13);
+
+        String csv = String.join("\n",
+                "title,author,isbn,publicationYear,genre,stock",
+                "\"Dune, Part One\",Frank Herbert," + isbn + ",1965,science,3",
+                ",Nobody," + UUID.randomUUID().toString().substring(0, 13) + ",2001,SCIENCE,1",
+                "Copy,Someone," + existing.isbn() + ",2001,SCIENCE,1",
+                "Again,Someone," + isbn + ",2001,SCIENCE,1",
+                "Broken,Someone,1234567890123,soon,SCIENCE,1");
+
+        mockMvc.perform(post(API_V1_BOOKS + "/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", is(5)))
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.rejected", is(4)))
+                .andExpect(jsonPath("$.errors[*].line", containsInAnyOrder(3, 4, 5, 6)))
+                .andExpect(jsonPath("$.errors[?(@.line == 3)].message", contains("Title cannot be empty")))
+                .andExpect(jsonPath("$.errors[?(@.line == 6)].message", contains("Invalid publicationYear: soon")));
+
+        mockMvc.perform(get(API_V1_BOOKS + "/search").param("isbn", isbn))
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].title", is("Dune, Part One")))
+                .andExpect(jsonPath("$.content[0].stock", is(3)));
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldImportNdjson() throws Exception {
+        BookRequest first = sampleBookRequest();
+        BookRequest second = sampleBookRequest();
+        String ndjson = objectMapper.writeValueAsString(first) + "\n"
+                + "{not json}\n"
+                + objectMapper.writeValueAsString(second) + "\n";
+
+        mockMvc.perform(post(API_V1_BOOKS + "/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(2)))
+                .andExpect(jsonPath("$.errors[0].line", is(2)));
+
+        mockMvc.perform(get(API_V1_BOOKS + "/search").param("isbn", second.isbn()))
+                .andExpect(jsonPath("$.content", hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldReportMissingCsvColumns() throws Exception {
+        mockMvc.perform(post(API_V1_BOOKS + "/import")
+                        .contentType("text/csv")
+                        .content("title,author,isbn,genre\nDune,Frank Herbert,1234567890123,SCIENCE"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("CSV header is missing columns: publicationYear, stock")));
+    }
+
+    @Test
+    @WithMockUser(roles = {"LIBRARIAN", "PATRON"})
+    void shouldLookUpBooksInBatch() throws Exception {
+        UUID first = createBook(sampleBookRequest());
+        UUID second = createBook(sampleBookRequest());
+        UUID missing = UUID.randomUUID();
+
+        mockMvc.perform(get(API_V1_BOOKS + "/batch").param("ids", first + "," + missing))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$." + first + ".id", is(first.toString())))
+                .andExpect(jsonPath("$." + missing).doesNotExist());
+
+        mockMvc.perform(post(API_V1_BOOKS + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", List.of(first, second, missing)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(2)))
+                .andExpect(jsonPath("$." + second + ".title", is("Test Book")));
+
+        mockMvc.perform(post(API_V1_BOOKS + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = {"LIBRARIAN", "PATRON"})
+    void shouldReserveAndReturnRemainingStock() throws Exception {
+        UUID bookId = createBook(sampleBookRequest());
+
+        mockMvc.perform(put(API_V1_BOOKS + "/" + bookId + "/reserve"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(bookId.toString())))
+                .andExpect(jsonPath("$.title", is("Test Book")))
+                .andExpect(jsonPath("$.stock", is(3)));
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(put(API_V1_BOOKS + "/" + bookId + "/reserve")).andExpect(status().isOk());
+        }
+        mockMvc.perform(put(API_V1_BOOKS + "/" + bookId + "/reserve"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @WithMockUser(roles = {"LIBRARIAN", "SERVICE"})
+    void shouldApplyRepeatedStockCommandOnce() throws Exception {
+        UUID bookId = createBook(sampleBookRequest());
+        String batch = objectMapper.writeValueAsString(new StockCommandBatchRequest(
+                List.of(new StockCommand(UUID.randomUUID(), bookId, 2))));
+
+        mockMvc.perform(post(API_V1_BOOKS + "/stock-commands")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied", is(1)))
+                .andExpect(jsonPath("$.duplicates", is(0)));
+
+        mockMvc.perform(post(API_V1_BOOKS + "/stock-commands")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied", is(0)))
+                .andExpect(jsonPath("$.duplicates", is(1)));
+
+        mockMvc.perform(get(API_V1_BOOKS + "/" + bookId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock", is(6)));
+    }
+
+    @Test
+    @WithMockUser(roles = "PATRON")
+    void shouldRejectStockCommandsFromUsers() throws Exception {
+        String batch = objectMapper.writeValueAsString(new StockCommandBatchRequest(
+                List.of(new StockCommand(UUID.randomUUID(), UUID.randomUUID(), 1))));
+
+        mockMvc.perform(post(API_V1_BOOKS + "/stock-commands")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = {"LIBRARIAN", "PATRON", "SERVICE"})
+    void shouldReserveOncePerKeyAndReleaseIdempotently() throws Exception {
+        UUID bookId = createBook(sampleBookRequest());
+        UUID key = UUID.randomUUID();
+        String release = objectMapper.writeValueAsString(new ReservationReleaseRequest(
+                List.of(new ReservationRelease(key, bookId))));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(put(API_V1_BOOKS + "/" + bookId + "/reserve").header("Idempotency-Key", key))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.stock", is(3)));
+        }
+
+        mockMvc.perform(post(API_V1_BOOKS + "/reservations/release")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(release))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied", is(1)));
+        mockMvc.perform(post(API_V1_BOOKS + "/reservations/release")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(release))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied", is(0)));
+
+        mockMvc.perform(put(API_V1_BOOKS + "/" + bookId + "/reserve").header("Idempotency-Key", key))
+                .andExpect(status().isGone());
+        mockMvc.perform(get(API_V1_BOOKS + "/" + bookId))
+                .andExpect(jsonPath("$.stock", is(4)));
+    }
+
+    @Test
+    @WithMockUser(roles = {"LIBRARIAN", "PATRON", "SERVICE"})
+    void shouldRefuseReservationReleasedBeforeItArrived() throws Exception {
+        UUID bookId = createBook(sampleBookRequest());
+        UUID key = UUID.randomUUID();
+
+        mockMvc.perform(post(API_V1_BOOKS + "/reservations/release")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ReservationReleaseRequest(
+                                List.of(new ReservationRelease(key, bookId))))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied", is(0)));
+
+        mockMvc.perform(put(API_V1_BOOKS + "/" + bookId + "/reserve").header("Idempotency-Key", key))
+                .andExpect(status().isGone());
+        mockMvc.perform(get(API_V1_BOOKS + "/" + bookId))
+                .andExpect(jsonPath("$.stock", is(4)));
+    }
+
+    @Test
+    @WithMockUser(roles = "LIBRARIAN")
+    void shouldStreamStockChangesOnlyAfterCommit() throws Exception {
+        UUID bookId = createBook(sampleBookRequest());
+        List<BookStockEvent> streamed = new CopyOnWriteArrayList<>();
+        stockUpdatePublisher.addListener(event -> {
+            if (event.bookId().equals(bookId)) {
+                streamed.add(event);
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.decreaseStock(bookId, null);
+            status.setRollbackOnly();
+        });
+        assertThat(streamed, empty());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.decreaseStock(bookId, null);
+            assertThat(streamed, empty());
+        });
+        assertThat(streamed, contains(new BookStockEvent(bookId, "Test Book", 3, Genre.SCIENCE, 4)));
+    }
+
+    private UUID createBook(BookRequest request) throws Exception {
+        String body = mockMvc.perform(post(API_V1_BOOKS)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return UUID.fromString(objectMapper.readTree(body).get("id").asText());
+    }
+
     private BookRequest sampleBookRequest() {
         return new BookRequest(
                 "Test Book",
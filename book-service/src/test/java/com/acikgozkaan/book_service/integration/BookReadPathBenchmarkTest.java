@@ -0,0 +1,108 @@
+package com.acikgozkaan.book_service.integration;
+
+import com.acikgozkaan.book_service.config.BookSpecifications;
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.mapper.BookMapper;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class BookReadPathBenchmarkTest {
+
+    private static final int ROWS = 10_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Autowired private BookRepository bookRepository;
+    @Autowired private BookMapper bookMapper;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private final String author = "bench-" + UUID.randomUUID().toString().substring(0, 8);
+
+    @BeforeEach
+    void seed() {
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{UUID.randomUUID(), "Benchmark Book " + i, author,
+                    "B" + String.format("%012d", i), 2000 + i % 25, Genre.values()[i % Genre.values().length].name(), i % 7});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (id, title, author, isbn, publication_year, genre, stock, " +
+                "version, stock_slots) VALUES (?, ?, ?, ?, ?, ?, ?, 0, 1)", rows);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM books WHERE author = ?", author);
+    }
+
+    @Test
+    @DisplayName("Projection reads should allocate less and run faster than hydrating entities on 10k rows")
+    void shouldCompareEntityAndProjectionReads() {
+        Specification<Book> spec = BookSpecifications.withAuthor(author);
+
+        Measurement entities = measure(() -> bookRepository.findAll(spec)
+                .stream()
+                .map(bookMapper::toResponse)
+                .toList());
+        Measurement projections = measure(() -> bookRepository.findResponses(spec, Pageable.unpaged()).getContent());
+
+        log.info("Entity read: {} rows, {} KiB allocated, {} ms median", entities.rows(),
+                entities.allocatedBytes() / 1024, entities.medianMillis());
+        log.info("Projection read: {} rows, {} KiB allocated, {} ms median", projections.rows(),
+                projections.allocatedBytes() / 1024, projections.medianMillis());
+
+        assertThat(entities.rows()).isEqualTo(ROWS);
+        assertThat(projections.rows()).isEqualTo(ROWS);
+        assertThat(projections.allocatedBytes()).isLessThan(entities.allocatedBytes());
+    }
+
+    private Measurement measure(Supplier<List<BookResponse>> read) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            read.get();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long minAllocated = Long.MAX_VALUE;
+        long[] nanos = new long[MEASURED_ROUNDS];
+        int rows = 0;
+
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            rows = read.get().size();
+            nanos[i] = System.nanoTime() - start;
+            minAllocated = Math.min(minAllocated, threads.getThreadAllocatedBytes(threadId) - allocatedBefore);
+        }
+
+        Arrays.sort(nanos);
+        return new Measurement(rows, minAllocated, nanos[MEASURED_ROUNDS / 2] / 1_000_000);
+    }
+
+    private record Measurement(int rows, long allocatedBytes, long medianMillis) {}
+}
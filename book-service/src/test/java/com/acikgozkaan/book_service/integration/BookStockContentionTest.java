@@ -0,0 +1,143 @@
+package com.acikgozkaan.book_service.integration;
+
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.exception.OutOfStockException;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import com.acikgozkaan.book_service.service.BookService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class BookStockContentionTest {
+
+    private static final int BORROWERS = 64;
+    private static final int ATTEMPTS_PER_BORROWER = 8;
+    private static final int INITIAL_STOCK = 300;
+
+    @Autowired private BookService bookService;
+    @Autowired private BookRepository bookRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("Concurrent borrowers should never oversell a single book")
+    void shouldNotOversellUnderContention() throws Exception {
+        UUID bookId = saveBook(INITIAL_STOCK);
+
+        RunResult result = runConcurrently(() -> bookService.decreaseStock(bookId, null));
+
+        log.info("Atomic decrement: {} borrows, {} rejected, {} ops/s",
+                result.succeeded(), result.rejected(), result.opsPerSecond());
+
+        assertThat(result.failed()).isZero();
+        assertThat(result.succeeded()).isEqualTo(INITIAL_STOCK);
+        assertThat(result.rejected()).isEqualTo(BORROWERS * ATTEMPTS_PER_BORROWER - INITIAL_STOCK);
+        assertThat(bookRepository.findById(bookId).orElseThrow().getStock()).isZero();
+    }
+
+    @Test
+    @DisplayName("Atomic decrement should sell the whole stock under contention, with read-modify-write logged for comparison")
+    void shouldCompareWithReadModifyWrite() throws Exception {
+        UUID legacyBookId = saveBook(INITIAL_STOCK);
+        RunResult legacy = runConcurrently(() -> transactionTemplate.executeWithoutResult(status -> {
+            Book book = bookRepository.findById(legacyBookId).orElseThrow();
+            if (book.getStock() <= 0) {
+                throw new OutOfStockException(legacyBookId);
+            }
+            book.setStock(book.getStock() - 1);
+            bookRepository.save(book);
+        }));
+        int legacyStock = bookRepository.findById(legacyBookId).orElseThrow().getStock();
+
+        UUID atomicBookId = saveBook(INITIAL_STOCK);
+        RunResult atomic = runConcurrently(() -> bookService.decreaseStock(atomicBookId, null));
+        int atomicStock = bookRepository.findById(atomicBookId).orElseThrow().getStock();
+
+        log.info("Read-modify-write: {} borrows accepted, {} failed, {} stock left ({} copies oversold), {} ops/s",
+                legacy.succeeded(), legacy.failed(), legacyStock,
+                legacy.succeeded() - (INITIAL_STOCK - legacyStock), legacy.opsPerSecond());
+        log.info("Atomic decrement: {} borrows accepted, {} stock left, {} ops/s",
+                atomic.succeeded(), atomicStock, atomic.opsPerSecond());
+
+        assertThat(atomic.failed()).isZero();
+        assertThat(atomic.succeeded()).isEqualTo(INITIAL_STOCK - atomicStock);
+        assertThat(atomicStock).isZero();
+    }
+
+    private UUID saveBook(int stock) {
+        Book book = Book.builder()
+                .title("Contended Bestseller")
+                .author("Popular Author")
+                .isbn(UUID.randomUUID().toString().substring(0, 13))
+                .publicationYear(2024)
+                .genre(Genre.FICTION)
+                .stock(stock)
+                .build();
+        return bookRepository.save(book).getId();
+    }
+
+    private RunResult runConcurrently(Runnable borrow) throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(BORROWERS);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < BORROWERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int attempt = 0; attempt < ATTEMPTS_PER_BORROWER; attempt++) {
+                        try {
+                            borrow.run();
+                            succeeded.incrementAndGet();
+                        } catch (OutOfStockException ex) {
+                            rejected.incrementAndGet();
+                        } catch (RuntimeException ex) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long startedAt = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsedNanos = System.nanoTime() - startedAt;
+
+            return new RunResult(succeeded.get(), rejected.get(), failed.get(), elapsedNanos);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private record RunResult(int succeeded, int rejected, int failed, long elapsedNanos) {
+        long opsPerSecond() {
+            return (long) (succeeded + rejected + failed) * 1_000_000_000L / Math.max(elapsedNanos, 1);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.acikgozkaan.book_service.unit;
+
+import com.acikgozkaan.book_service.dto.BooksImportedEvent;
+import com.acikgozkaan.book_service.dto.request.BookImportFormat;
+import com.acikgozkaan.book_service.dto.response.BookImportReport;
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.exception.InvalidImportException;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import com.acikgozkaan.book_service.service.impl.BookCatalogImporter;
+import com.acikgozkaan.book_service.service.impl.IsbnBloomFilter;
+import com.acikgozkaan.book_service.service.impl.ShardedStockManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookCatalogImporterTest {
+
+    private static final String CONFLICTING_ISBN = "9780000000002";
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private ShardedStockManager shardedStockManager;
+
+    @Mock
+    private IsbnBloomFilter isbnFilter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BookCatalogImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        importer = new BookCatalogImporter(bookRepository, shardedStockManager, isbnFilter, eventPublisher,
+                jdbcTemplate, transactionTemplate, Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper(), 10, 100);
+    }
+
+    @Test
+    @DisplayName("Should retry a rejected batch row by row and publish one event for the written rows")
+    void shouldRetryRejectedBatchRowByRow() {
+        when(isbnFilter.mightContain(anyString())).thenReturn(false);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any())).thenAnswer(invocation -> {
+            Collection<?> rows = invocation.getArgument(1);
+            if (rows.size() > 1 || rows.toString().contains(CONFLICTING_ISBN)) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return new int[][]{{1}};
+        });
+
+        BookImportReport report = importer.importBooks(csv(
+                "title,author,isbn,publicationYear,genre,stock",
+                "First,Someone,9780000000001,2001,SCIENCE,1",
+                "Second,Someone," + CONFLICTING_ISBN + ",2001,SCIENCE,1",
+                "Third,Someone,9780000000003,2001,SCIENCE,1"), BookImportFormat.CSV);
+
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.errors()).singleElement().satisfies(error -> {
+            assertThat(error.line()).isEqualTo(3);
+            assertThat(error.isbn()).isEqualTo(CONFLICTING_ISBN);
+        });
+
+        ArgumentCaptor<BooksImportedEvent> event = ArgumentCaptor.forClass(BooksImportedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().books()).extracting(BookResponse::title).containsExactly("First", "Third");
+    }
+
+    @Test
+    @DisplayName("Should count filter hits that turn out to be free ISBNs as false positives")
+    void shouldRecordFalsePositives() {
+        when(isbnFilter.mightContain(anyString())).thenReturn(true);
+        when(bookRepository.findExistingIsbns(any())).thenReturn(Set.of("9780000000001"));
+        doAnswer(invocation -> null).when(transactionTemplate).executeWithoutResult(any());
+
+        importer.importBooks(csv(
+                "title,author,isbn,publicationYear,genre,stock",
+                "First,Someone,9780000000001,2001,SCIENCE,1",
+                "Second,Someone,9780000000002,2001,SCIENCE,1",
+                "Third,Someone,9780000000003,2001,SCIENCE,1"), BookImportFormat.CSV);
+
+        verify(isbnFilter).recordFalsePositives(2);
+    }
+
+    @Test
+    @DisplayName("Should fail the import with the header problem when required columns are missing")
+    void shouldRejectIncompleteCsvHeader() {
+        assertThatThrownBy(() -> importer.importBooks(csv("title,author,isbn"), BookImportFormat.CSV))
+                .isInstanceOf(InvalidImportException.class)
+                .hasMessage("CSV header is missing columns: publicationYear, genre, stock");
+    }
+
+    private static InputStream csv(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,32 +1,65 @@
 package com.acikgozkaan.book_service.unit;
 
-import com.acikgozkaan.book_service.config.StockUpdatePublisher;
+import com.acikgozkaan.book_service.cache.BookCache;
+import com.acikgozkaan.book_service.cache.NoOpBookCache;
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.BookSearchCursor;
+import com.acikgozkaan.book_service.dto.BookStockEvent;
 import com.acikgozkaan.book_service.dto.request.BookRequest;
+import com.acikgozkaan.book_service.dto.request.StockCommand;
+import com.acikgozkaan.book_service.dto.request.StockCommandBatchRequest;
+import com.acikgozkaan.book_service.dto.request.StockReservationItem;
+import com.acikgozkaan.book_service.dto.request.StockReservationRequest;
 import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.dto.response.BookSliceResponse;
+import com.acikgozkaan.book_service.dto.response.StockCommandResult;
 import com.acikgozkaan.book_service.entity.Book;
 import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.entity.ReservationStatus;
+import com.acikgozkaan.book_service.entity.StockReservation;
 import com.acikgozkaan.book_service.exception.BookNotFoundException;
+import com.acikgozkaan.book_service.exception.BookVersionConflictException;
 import com.acikgozkaan.book_service.exception.IsbnAlreadyExistsException;
 import com.acikgozkaan.book_service.exception.OutOfStockException;
+import com.acikgozkaan.book_service.exception.ReservationReleasedException;
 import com.acikgozkaan.book_service.mapper.BookMapper;
 import com.acikgozkaan.book_service.repository.BookRepository;
+import com.acikgozkaan.book_service.repository.StockReservationRepository;
 import com.acikgozkaan.book_service.service.impl.BookServiceImpl;
+import com.acikgozkaan.book_service.service.impl.BookSuggestionIndex;
+import com.acikgozkaan.book_service.service.impl.BookTrigramIndex;
+import com.acikgozkaan.book_service.service.impl.IsbnBloomFilter;
+import com.acikgozkaan.book_service.service.impl.RankedBookSearch;
+import com.acikgozkaan.book_service.service.impl.ShardedStockManager;
+import com.acikgozkaan.book_service.service.impl.StockCommandLedger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -45,7 +78,31 @@ public class BookServiceTest {
     private BookMapper bookMapper;
 
     @Mock
-    private StockUpdatePublisher stockUpdatePublisher;
+    private ShardedStockManager shardedStockManager;
+
+    @Mock
+    private RankedBookSearch rankedBookSearch;
+
+    @Mock
+    private BookTrigramIndex bookTrigramIndex;
+
+    @Mock
+    private BookSuggestionIndex bookSuggestionIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private StockCommandLedger stockCommandLedger;
+
+    @Mock
+    private StockReservationRepository stockReservationRepository;
+
+    @Spy
+    private BookCache bookCache = new NoOpBookCache();
+
+    @Spy
+    private IsbnBloomFilter isbnFilter = new IsbnBloomFilter(null, null, new SimpleMeterRegistry(), 1000, 0.01);
 
     private Book book;
     private BookRequest request;
@@ -91,13 +148,38 @@ public class BookServiceTest {
     void shouldCreateBook() {
         when(bookRepository.existsByIsbn(request.isbn())).thenReturn(false);
         when(bookMapper.toBook(request)).thenReturn(book);
-        when(bookRepository.save(book)).thenReturn(book);
+        when(bookRepository.saveAndFlush(book)).thenReturn(book);
         when(bookMapper.toResponse(book)).thenReturn(response);
 
         BookResponse result = bookService.create(request);
 
         assertThat(result).isEqualTo(response);
-        verify(bookRepository).save(book);
+        verify(bookRepository).saveAndFlush(book);
+        verify(bookRepository, never()).existsByIsbnAndIdNot(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should skip the ISBN query when the filter rules the ISBN out")
+    void shouldSkipIsbnQueryOnFilterMiss() {
+        doReturn(false).when(isbnFilter).mightContain(request.isbn());
+        when(bookMapper.toBook(request)).thenReturn(book);
+        when(bookRepository.saveAndFlush(book)).thenReturn(book);
+        when(bookMapper.toResponse(book)).thenReturn(response);
+
+        bookService.create(request);
+
+        verify(bookRepository, never()).existsByIsbn(any());
+    }
+
+    @Test
+    @DisplayName("Should report a duplicate ISBN when the unique constraint catches a concurrent create")
+    void shouldMapConstraintViolationOnCreate() {
+        when(bookRepository.existsByIsbn(request.isbn())).thenReturn(false);
+        when(bookMapper.toBook(request)).thenReturn(book);
+        when(bookRepository.saveAndFlush(book)).thenThrow(new DataIntegrityViolationException("uk_isbn"));
+
+        assertThatThrownBy(() -> bookService.create(request))
+                .isInstanceOf(IsbnAlreadyExistsException.class);
     }
 
     @Test
@@ -112,8 +194,7 @@ public class BookServiceTest {
     @Test
     @DisplayName("Should get book by id")
     void shouldGetBookById() {
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        when(bookMapper.toResponse(book)).thenReturn(response);
+        when(bookRepository.findResponseById(bookId)).thenReturn(Optional.of(response));
 
         BookResponse result = bookService.getById(bookId);
 
@@ -123,27 +204,70 @@ public class BookServiceTest {
     @Test
     @DisplayName("Should throw when book not found by id")
     void shouldThrowWhenBookNotFound() {
-        when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
+        when(bookRepository.findResponseById(bookId)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> bookService.getById(bookId))
                 .isInstanceOf(BookNotFoundException.class);
     }
 
+    @Test
+    @DisplayName("Should resolve a batch of ids in chunked IN queries")
+    void shouldGetBooksByIdsInChunks() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        ids.set(1, bookId);
+        ids.add(bookId);
+        when(bookRepository.findResponsesByIdIn(any())).thenReturn(List.of());
+        when(bookRepository.findResponsesByIdIn(argThat(chunk -> chunk.contains(bookId)))).thenReturn(List.of(response));
+
+        Map<UUID, BookResponse> result = bookService.getByIds(ids);
+
+        assertThat(result).containsOnlyKeys(bookId);
+        verify(bookRepository, times(3)).findResponsesByIdIn(any());
+    }
+
+    @Test
+    @DisplayName("Should reject batch lookups above the id limit")
+    void shouldRejectOversizedBatchLookup() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5001; i++) {
+            ids.add(UUID.randomUUID());
+        }
+
+        assertThatThrownBy(() -> bookService.getByIds(ids))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(bookRepository);
+    }
+
     @Test
     @DisplayName("Should return all books")
     void shouldReturnAllBooks() {
-        when(bookRepository.findAll()).thenReturn(List.of(book));
-        when(bookMapper.toResponse(book)).thenReturn(response);
+        when(bookRepository.findAllResponses()).thenReturn(List.of(response));
 
         List<BookResponse> result = bookService.getAll();
 
         assertThat(result).containsExactly(response);
+        verifyNoInteractions(bookMapper);
+    }
+
+    @Test
+    @DisplayName("Should stream every book to the consumer and close the cursor")
+    void shouldExportAllBooks() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(bookRepository.streamAllResponses()).thenReturn(Stream.of(response).onClose(() -> closed.set(true)));
+
+        List<BookResponse> exported = new ArrayList<>();
+        bookService.exportAll(exported::add);
+
+        assertThat(exported).containsExactly(response);
+        assertThat(closed).isTrue();
     }
 
     @Test
     @DisplayName("Should update book successfully")
     void shouldUpdateBookSuccessfully() {
-        when(bookRepository.existsByIsbnAndIdNot(request.isbn(), bookId)).thenReturn(false);
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
 
         doAnswer(invocation -> {
@@ -158,28 +282,91 @@ public class BookServiceTest {
             return null;
         }).when(bookMapper).updateBookFromRequest(book, request);
 
-        when(bookRepository.save(book)).thenReturn(book);
+        when(bookRepository.saveAndFlush(book)).thenReturn(book);
         when(bookMapper.toResponse(book)).thenReturn(response);
 
         BookResponse result = bookService.update(bookId, request);
 
         assertThat(result).isEqualTo(response);
-        verify(bookRepository).save(book);
+        verify(bookRepository).saveAndFlush(book);
+    }
+
+    @Test
+    @DisplayName("Should rebalance stock slots when librarian updates a sharded book")
+    void shouldRebalanceSlotsOnUpdate() {
+        BookRequest shardedRequest = new BookRequest(
+                book.getTitle(), book.getAuthor(), book.getIsbn(),
+                book.getPublicationYear(), book.getGenre(), 40, 8);
+
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        doAnswer(invocation -> {
+            Book b = invocation.getArgument(0);
+            b.setStock(40);
+            b.setStockSlots(8);
+            return null;
+        }).when(bookMapper).updateBookFromRequest(book, shardedRequest);
+        when(bookRepository.saveAndFlush(book)).thenReturn(book);
+        when(bookMapper.toResponse(book)).thenReturn(buildSampleResponse(book));
+
+        bookService.update(bookId, shardedRequest);
+
+        verify(shardedStockManager).rebalance(book);
+    }
+
+    @Test
+    @DisplayName("Should reject update when the expected version is stale")
+    void shouldThrowOnVersionMismatchDuringUpdate() {
+        book.setVersion(3L);
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+
+        assertThatThrownBy(() -> bookService.update(bookId, request, 2L))
+                .isInstanceOf(BookVersionConflictException.class);
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
     }
 
     @Test
     @DisplayName("Should throw if ISBN exists on another book during update")
     void shouldThrowIfIsbnExistsOnUpdate() {
-        when(bookRepository.existsByIsbnAndIdNot(request.isbn(), bookId)).thenReturn(true);
+        BookRequest taken = withIsbn("9999999999999");
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        when(bookRepository.existsByIsbnAndIdNot(taken.isbn(), bookId)).thenReturn(true);
 
-        assertThatThrownBy(() -> bookService.update(bookId, request))
+        assertThatThrownBy(() -> bookService.update(bookId, taken))
                 .isInstanceOf(IsbnAlreadyExistsException.class);
+        verify(isbnFilter, never()).recordFalsePositive();
+    }
+
+    @Test
+    @DisplayName("Should count a filter hit on a free ISBN during update as a false positive")
+    void shouldRecordFalsePositiveOnUpdate() {
+        BookRequest free = withIsbn("9999999999999");
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        doReturn(true).when(isbnFilter).mightContain(free.isbn());
+        when(bookRepository.existsByIsbnAndIdNot(free.isbn(), bookId)).thenReturn(false);
+        when(bookRepository.saveAndFlush(book)).thenReturn(book);
+        when(bookMapper.toResponse(book)).thenReturn(response);
+
+        bookService.update(bookId, free);
+
+        verify(isbnFilter).recordFalsePositive();
+    }
+
+    @Test
+    @DisplayName("Should report a duplicate ISBN when the unique constraint catches an update the filter missed")
+    void shouldMapConstraintViolationOnUpdate() {
+        BookRequest taken = withIsbn("9999999999999");
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        doReturn(false).when(isbnFilter).mightContain(taken.isbn());
+        when(bookRepository.saveAndFlush(book)).thenThrow(new DataIntegrityViolationException("uk_isbn"));
+
+        assertThatThrownBy(() -> bookService.update(bookId, taken))
+                .isInstanceOf(IsbnAlreadyExistsException.class);
+        verify(bookRepository, never()).existsByIsbnAndIdNot(any(), any());
     }
 
     @Test
     @DisplayName("Should throw if book not found during update")
     void shouldThrowIfBookNotFoundOnUpdate() {
-        when(bookRepository.existsByIsbnAndIdNot(request.isbn(), bookId)).thenReturn(false);
         when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> bookService.update(bookId, request))
@@ -194,6 +381,7 @@ public class BookServiceTest {
         bookService.delete(bookId);
 
         verify(bookRepository).delete(book);
+        verify(eventPublisher).publishEvent(BookChangedEvent.deleted(bookId));
     }
 
     @Test
@@ -206,73 +394,247 @@ public class BookServiceTest {
     }
 
     @Test
-    @DisplayName("Should decrease stock when book is available")
+    @DisplayName("Should decrease stock atomically when book is available")
     void shouldDecreaseStock() {
-        book.setStock(3);
+        book.setStock(2);
+        when(bookRepository.decreaseStockIfAvailable(bookId, 1)).thenReturn(1);
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+
+        bookService.decreaseStock(bookId, null);
+
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(eventPublisher).publishEvent(new BookStockEvent(bookId, book.getTitle(), 2, book.getGenre(), 3));
+    }
+
+    @Test
+    @DisplayName("Should reserve one copy and return the book with its remaining stock")
+    void shouldReserveAndDescribeBook() {
+        book.setStock(4);
+        BookResponse reserved = buildSampleResponse(book);
+        when(bookRepository.decreaseStockIfAvailable(bookId, 1)).thenReturn(1);
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        when(bookMapper.toResponse(book)).thenReturn(reserved);
+
+        BookResponse result = bookService.reserve(bookId, null);
+
+        assertThat(result).isEqualTo(reserved);
+        verify(eventPublisher).publishEvent(new BookStockEvent(bookId, book.getTitle(), 4, book.getGenre(), 5));
+    }
+
+    @Test
+    @DisplayName("Should not describe the book when reservation finds no stock")
+    void shouldThrowOutOfStockOnReserve() {
+        book.setStock(0);
+        when(bookRepository.decreaseStockIfAvailable(bookId, 1)).thenReturn(0);
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        bookService.decreaseStock(bookId);
+        assertThatThrownBy(() -> bookService.reserve(bookId, null))
+                .isInstanceOf(OutOfStockException.class);
+        verify(eventPublisher, never()).publishEvent(any(BookStockEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should answer a replayed reservation without taking another copy")
+    void shouldReplayReservationWithoutTakingStock() {
+        UUID key = UUID.randomUUID();
+        BookResponse current = buildSampleResponse(book);
+        when(stockReservationRepository.findById(key)).thenReturn(Optional.of(reservation(key, ReservationStatus.RESERVED)));
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        when(bookMapper.toResponse(book)).thenReturn(current);
+
+        BookResponse result = bookService.reserve(bookId, key);
+
+        assertThat(result).isEqualTo(current);
+        verify(bookRepository, never()).decreaseStockIfAvailable(any(UUID.class), anyInt());
+        verify(stockReservationRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(BookStockEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should refuse a reservation whose key was already released")
+    void shouldRefuseReservationAfterRelease() {
+        UUID key = UUID.randomUUID();
+        when(stockReservationRepository.findById(key)).thenReturn(Optional.of(reservation(key, ReservationStatus.RELEASED)));
+
+        assertThatThrownBy(() -> bookService.reserve(bookId, key))
+                .isInstanceOf(ReservationReleasedException.class);
+        verify(bookRepository, never()).decreaseStockIfAvailable(any(UUID.class), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should ignore a repeated decrease with the same idempotency key")
+    void shouldIgnoreRepeatedDecrease() {
+        UUID key = UUID.randomUUID();
+        when(stockCommandLedger.recordOnce(key, bookId)).thenReturn(false);
+
+        bookService.decreaseStock(bookId, key);
 
-        assertThat(book.getStock()).isEqualTo(2);
-        verify(bookRepository).save(book);
-        verify(stockUpdatePublisher).publish(any());
+        verifyNoInteractions(bookRepository);
+        verify(eventPublisher, never()).publishEvent(any(BookStockEvent.class));
     }
 
     @Test
     @DisplayName("Should throw OutOfStockException when stock is 0")
     void shouldThrowOutOfStockWhenStockIsZero() {
         book.setStock(0);
+        when(bookRepository.decreaseStockIfAvailable(bookId, 1)).thenReturn(0);
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+
+        assertThatThrownBy(() -> bookService.decreaseStock(bookId, null))
+                .isInstanceOf(OutOfStockException.class);
+        verifyNoInteractions(shardedStockManager);
+        verify(eventPublisher, never()).publishEvent(any(BookStockEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should decrease a stock slot when book stock is sharded")
+    void shouldDecreaseShardedStock() {
+        book.setStockSlots(4);
+        book.setSlotStockTotal(7);
+        when(bookRepository.decreaseStockIfAvailable(bookId, 1)).thenReturn(0);
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        when(shardedStockManager.tryDecrease(book, 1)).thenReturn(true);
+
+        bookService.decreaseStock(bookId, null);
+
+        verify(eventPublisher).publishEvent(new BookStockEvent(bookId, book.getTitle(), 7, book.getGenre(), 8));
+    }
 
-        assertThatThrownBy(() -> bookService.decreaseStock(bookId))
+    @Test
+    @DisplayName("Should throw OutOfStockException when every stock slot is empty")
+    void shouldThrowOutOfStockWhenAllSlotsEmpty() {
+        book.setStockSlots(4);
+        when(bookRepository.decreaseStockIfAvailable(bookId, 1)).thenReturn(0);
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        when(shardedStockManager.tryDecrease(book, 1)).thenReturn(false);
+
+        assertThatThrownBy(() -> bookService.decreaseStock(bookId, null))
                 .isInstanceOf(OutOfStockException.class);
+        verify(eventPublisher, never()).publishEvent(any(BookStockEvent.class));
     }
 
     @Test
     @DisplayName("Should throw BookNotFoundException when book not found")
     void shouldThrowBookNotFoundWhenDecreasingStock() {
+        when(bookRepository.decreaseStockIfAvailable(bookId, 1)).thenReturn(0);
         when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> bookService.decreaseStock(bookId))
+        assertThatThrownBy(() -> bookService.decreaseStock(bookId, null))
                 .isInstanceOf(BookNotFoundException.class);
     }
 
     @Test
-    @DisplayName("Should increase stock when book exists")
+    @DisplayName("Should increase stock atomically when book exists")
     void shouldIncreaseStock() {
-        book.setStock(2);
+        book.setStock(3);
+        when(bookRepository.increaseStock(bookId, 1)).thenReturn(1);
         when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        bookService.increaseStock(bookId);
+        bookService.increaseStock(bookId, null);
 
-        assertThat(book.getStock()).isEqualTo(3);
-        verify(bookRepository).save(book);
-        verify(stockUpdatePublisher).publish(any());
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(eventPublisher).publishEvent(new BookStockEvent(bookId, book.getTitle(), 3, book.getGenre(), 2));
     }
 
     @Test
     @DisplayName("Should throw BookNotFoundException when increasing stock for non-existing book")
     void shouldThrowBookNotFoundWhenIncreasingStock() {
+        when(bookRepository.increaseStock(bookId, 1)).thenReturn(0);
         when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> bookService.increaseStock(bookId))
+        assertThatThrownBy(() -> bookService.increaseStock(bookId, null))
                 .isInstanceOf(BookNotFoundException.class);
     }
 
+    @Test
+    @DisplayName("Should reserve merged quantities in book id order")
+    void shouldReserveStockInDeterministicOrder() {
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        StockReservationRequest reservation = new StockReservationRequest(List.of(
+                new StockReservationItem(second, 1),
+                new StockReservationItem(first, 2),
+                new StockReservationItem(second, 1)
+        ));
+
+        book.setId(first);
+        when(bookRepository.decreaseStockIfAvailable(any(UUID.class), anyInt())).thenReturn(1);
+        when(bookRepository.findAllById(any())).thenReturn(List.of(book));
+
+        bookService.reserveStock(reservation);
+
+        InOrder inOrder = inOrder(bookRepository);
+        inOrder.verify(bookRepository).decreaseStockIfAvailable(first, 2);
+        inOrder.verify(bookRepository).decreaseStockIfAvailable(second, 2);
+        verify(eventPublisher).publishEvent(new BookStockEvent(first, book.getTitle(), 5, book.getGenre(), 7));
+    }
+
+    @Test
+    @DisplayName("Should abort the whole reservation when one book is out of stock")
+    void shouldAbortReservationWhenOneBookIsOutOfStock() {
+        UUID first = new UUID(0, 1);
+        UUID scarce = new UUID(0, 2);
+        StockReservationRequest reservation = new StockReservationRequest(List.of(
+                new StockReservationItem(scarce, 1),
+                new StockReservationItem(first, 1)
+        ));
+        book.setStock(0);
+
+        when(bookRepository.decreaseStockIfAvailable(first, 1)).thenReturn(1);
+        when(bookRepository.decreaseStockIfAvailable(scarce, 1)).thenReturn(0);
+        when(bookRepository.findById(scarce)).thenReturn(Optional.of(book));
+
+        assertThatThrownBy(() -> bookService.reserveStock(reservation))
+                .isInstanceOf(OutOfStockException.class);
+        verify(eventPublisher, never()).publishEvent(any(BookStockEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should apply only stock commands the ledger has not seen before")
+    void shouldApplyOnlyFreshStockCommands() {
+        StockCommand fresh = new StockCommand(UUID.randomUUID(), bookId, 1);
+        StockCommand replayed = new StockCommand(UUID.randomUUID(), bookId, 1);
+        StockCommandBatchRequest batch = new StockCommandBatchRequest(List.of(fresh, replayed));
+        book.setStock(3);
+
+        when(stockCommandLedger.recordNew(batch.commands())).thenReturn(List.of(fresh));
+        when(bookRepository.findAllById(any())).thenReturn(List.of(book));
+        when(bookRepository.increaseStock(bookId, 1)).thenReturn(1);
+
+        StockCommandResult result = bookService.applyStockCommands(batch);
+
+        assertThat(result).isEqualTo(new StockCommandResult(1, 1));
+        verify(bookRepository).increaseStock(bookId, 1);
+        verify(eventPublisher).publishEvent(new BookStockEvent(bookId, book.getTitle(), 3, book.getGenre(), 2));
+    }
+
+    @Test
+    @DisplayName("Should record but drop stock commands for deleted books")
+    void shouldDropStockCommandsForDeletedBooks() {
+        StockCommand orphan = new StockCommand(UUID.randomUUID(), UUID.randomUUID(), 2);
+        StockCommandBatchRequest batch = new StockCommandBatchRequest(List.of(orphan));
+
+        when(stockCommandLedger.recordNew(batch.commands())).thenReturn(List.of(orphan));
+        when(bookRepository.findAllById(any())).thenReturn(List.of());
+
+        StockCommandResult result = bookService.applyStockCommands(batch);
+
+        assertThat(result).isEqualTo(new StockCommandResult(1, 0));
+        verify(bookRepository, never()).increaseStock(any(UUID.class), anyInt());
+        verify(eventPublisher, never()).publishEvent(any(BookStockEvent.class));
+    }
+
     @Test
     @DisplayName("Should return books matching all search criteria")
     void shouldReturnMatchingBooks() {
         Pageable pageable = PageRequest.of(0, 5);
         Book book = buildSampleBook();
-        Page<Book> bookPage = new PageImpl<>(List.of(book));
+        Page<BookResponse> bookPage = new PageImpl<>(List.of(buildSampleResponse(book)));
 
         @SuppressWarnings("unchecked")
         Specification<Book> spec = any(Specification.class);
 
-        when(bookRepository.findAll(spec, eq(pageable))).thenReturn(bookPage);
-        when(bookMapper.toResponse(book)).thenReturn(buildSampleResponse(book));
+        when(bookRepository.findResponses(spec, eq(pageable))).thenReturn(bookPage);
 
         Page<BookResponse> result = bookService.searchBooks(
                 "Clean Code", "Robert", "9780132350884", Genre.TECHNOLOGY, pageable
@@ -282,16 +644,33 @@ public class BookServiceTest {
         assertThat(result.getContent().getFirst().title()).isEqualTo("Clean Code");
     }
 
+    @Test
+    @DisplayName("Should load only the resolved page from the database when the in-memory index answers")
+    void shouldLoadIndexedPage() {
+        Pageable pageable = PageRequest.of(1, 1);
+        Book book = buildSampleBook();
+        Page<UUID> ids = new PageImpl<>(List.of(book.getId()), pageable, 3);
+
+        when(bookTrigramIndex.search("Clean", null, null, null, pageable)).thenReturn(Optional.of(ids));
+        when(bookRepository.findResponsesByIdIn(List.of(book.getId()))).thenReturn(List.of(buildSampleResponse(book)));
+
+        Page<BookResponse> result = bookService.searchBooks("Clean", null, null, null, pageable);
+
+        assertThat(result.getContent()).extracting(BookResponse::id).containsExactly(book.getId());
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        verify(bookRepository, never()).findResponses(ArgumentMatchers.<Specification<Book>>any(), eq(pageable));
+    }
+
     @Test
     @DisplayName("Should return empty page when no books match criteria")
     void shouldReturnEmptyWhenNoMatch() {
         Pageable pageable = PageRequest.of(0, 5);
-        Page<Book> emptyPage = Page.empty();
+        Page<BookResponse> emptyPage = Page.empty();
 
         @SuppressWarnings("unchecked")
         Specification<Book> spec = any(Specification.class);
 
-        when(bookRepository.findAll(spec, eq(pageable))).thenReturn(emptyPage);
+        when(bookRepository.findResponses(spec, eq(pageable))).thenReturn(emptyPage);
 
         Page<BookResponse> result = bookService.searchBooks("NoTitle", null, null, null, pageable);
 
@@ -312,14 +691,12 @@ public class BookServiceTest {
                 .publicationYear(2010)
                 .stock(5)
                 .build();
-        Page<Book> books = new PageImpl<>(List.of(book1, book2));
+        Page<BookResponse> books = new PageImpl<>(List.of(buildSampleResponse(book1), buildSampleResponse(book2)));
 
         @SuppressWarnings("unchecked")
         Specification<Book> spec = any(Specification.class);
 
-        when(bookRepository.findAll(spec, eq(pageable))).thenReturn(books);
-        when(bookMapper.toResponse(book1)).thenReturn(buildSampleResponse(book1));
-        when(bookMapper.toResponse(book2)).thenReturn(buildSampleResponse(book2));
+        when(bookRepository.findResponses(spec, eq(pageable))).thenReturn(books);
 
         Page<BookResponse> result = bookService.searchBooks(null, null, null, null, pageable);
 
@@ -327,6 +704,68 @@ public class BookServiceTest {
     }
 
 
+    @Test
+    @DisplayName("Should return a keyset slice with a continuation cursor when more rows exist")
+    void shouldReturnSliceWithNextCursor() {
+        BookResponse first = buildSampleResponse(buildSampleBook());
+        BookResponse second = buildSampleResponse(buildSampleBook());
+        BookResponse third = buildSampleResponse(buildSampleBook());
+
+        @SuppressWarnings("unchecked")
+        Specification<Book> spec = any(Specification.class);
+        when(bookRepository.findResponses(spec, eq(Sort.by("author", "id")), eq(3)))
+                .thenReturn(List.of(first, second, third));
+
+        BookSliceResponse result = bookService.searchBooksAfter(null, null, null, null, "", "author", 2);
+
+        assertThat(result.content()).hasSize(2);
+        assertThat(result.hasNext()).isTrue();
+
+        BookSearchCursor cursor = BookSearchCursor.decode(result.nextCursor());
+        assertThat(cursor.sortField()).isEqualTo("author");
+        assertThat(cursor.sortValue()).isEqualTo(second.author());
+        assertThat(cursor.lastId()).isEqualTo(second.id());
+        verify(bookRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    @DisplayName("Should return last slice without a cursor")
+    void shouldReturnLastSliceWithoutCursor() {
+        BookResponse last = buildSampleResponse(buildSampleBook());
+        String cursor = new BookSearchCursor("title", "Clean Code", UUID.randomUUID()).encode();
+
+        @SuppressWarnings("unchecked")
+        Specification<Book> spec = any(Specification.class);
+        when(bookRepository.findResponses(spec, any(Sort.class), eq(21))).thenReturn(List.of(last));
+
+        BookSliceResponse result = bookService.searchBooksAfter("Clean", null, null, null, cursor, null, 20);
+
+        assertThat(result.content()).hasSize(1);
+        assertThat(result.hasNext()).isFalse();
+        assertThat(result.nextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject tampered cursors")
+    void shouldRejectInvalidCursor() {
+        assertThatThrownBy(() -> bookService.searchBooksAfter(null, null, null, null, "not-a-cursor", null, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private StockReservation reservation(UUID key, ReservationStatus status) {
+        return StockReservation.builder()
+                .id(key)
+                .bookId(bookId)
+                .status(status)
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    private BookRequest withIsbn(String isbn) {
+        return new BookRequest(request.title(), request.author(), isbn,
+                request.publicationYear(), request.genre(), request.stock());
+    }
+
     private Book buildSampleBook() {
         return Book.builder()
                 .id(UUID.randomUUID())
@@ -0,0 +1,143 @@
+package com.acikgozkaan.book_service.unit;
+
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.dto.response.BookSuggestion;
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import com.acikgozkaan.book_service.service.impl.BookSuggestionIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookSuggestionIndexTest {
+
+    @InjectMocks
+    private BookSuggestionIndex index;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private Book cleanCode;
+    private Book cleanArchitecture;
+    private Book cleaning;
+
+    @BeforeEach
+    void setUp() {
+        cleanCode = book("Clean Code", "Robert Martin", 3);
+        cleanArchitecture = book("Clean Architecture", "Robert Martin", 9);
+        cleaning = book("Cleaning Up", "Édith Brun", 5);
+
+        when(bookRepository.findFirst1000ByOrderById()).thenReturn(List.of(cleanCode, cleanArchitecture, cleaning));
+        when(bookRepository.findFirst1000ByIdGreaterThanOrderById(any())).thenReturn(List.of());
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should return prefix matches ordered by stock")
+    void shouldSuggestByStock() {
+        assertThat(index.suggest("CLEAN", 10))
+                .extracting(BookSuggestion::title)
+                .containsExactly("Clean Architecture", "Cleaning Up", "Clean Code");
+
+        assertThat(index.suggest("clean c", 10))
+                .extracting(BookSuggestion::title)
+                .containsExactly("Clean Code");
+    }
+
+    @Test
+    @DisplayName("Should match authors and ignore accents and repeated spaces")
+    void shouldNormalizeKeys() {
+        assertThat(index.suggest("edith", 10)).extracting(BookSuggestion::id).containsExactly(cleaning.getId());
+        assertThat(index.suggest("robert   mar", 1)).extracting(BookSuggestion::id)
+                .containsExactly(cleanArchitecture.getId());
+        assertThat(index.suggest("cleanx", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reorder on stock changes and drop renamed or deleted books")
+    void shouldApplyChanges() {
+        index.onBookChanged(new BookChangedEvent(cleanCode.getId(), response(cleanCode, "Clean Code", 20)));
+        index.onBookChanged(new BookChangedEvent(cleaning.getId(), response(cleaning, "Tidy Up", 5)));
+        index.onBookChanged(BookChangedEvent.deleted(cleanArchitecture.getId()));
+
+        assertThat(index.suggest("clean", 10))
+                .extracting(BookSuggestion::title, BookSuggestion::stock)
+                .containsExactly(tuple("Clean Code", 20));
+        assertThat(index.suggest("tidy", 10)).extracting(BookSuggestion::id).containsExactly(cleaning.getId());
+    }
+
+    @Test
+    @DisplayName("Should update stock without the write lock when the ordering does not change")
+    void shouldUpdateStockInPlaceWhenRankIsKept() {
+        ReentrantReadWriteLock lock = (ReentrantReadWriteLock) ReflectionTestUtils.getField(index, "lock");
+        lock.readLock().lock();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> index.onBookChanged(
+                    new BookChangedEvent(cleanCode.getId(), response(cleanCode, "Clean Code", 2))));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        assertThat(index.suggest("clean", 10))
+                .extracting(BookSuggestion::title, BookSuggestion::stock)
+                .containsExactly(tuple("Clean Architecture", 9), tuple("Cleaning Up", 5), tuple("Clean Code", 2));
+    }
+
+    @Test
+    @DisplayName("Should keep serving the old trie during a rebuild and replay changes made meanwhile")
+    void shouldRebuildAsideAndReplayChanges() {
+        when(bookRepository.findFirst1000ByOrderById()).thenAnswer(invocation -> {
+            List<BookSuggestion> during = CompletableFuture
+                    .supplyAsync(() -> index.suggest("clean", 10))
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(during).hasSize(3);
+
+            index.onBookChanged(new BookChangedEvent(cleanCode.getId(), response(cleanCode, "Clean Code", 30)));
+            return List.of(cleanCode, cleanArchitecture, cleaning);
+        });
+
+        index.rebuild();
+
+        assertThat(index.suggest("clean", 1))
+                .extracting(BookSuggestion::title, BookSuggestion::stock)
+                .containsExactly(tuple("Clean Code", 30));
+    }
+
+    private BookResponse response(Book book, String title, int stock) {
+        return new BookResponse(book.getId(), title, book.getAuthor(), book.getIsbn(),
+                book.getPublicationYear(), book.getGenre(), stock);
+    }
+
+    private Book book(String title, String author, int stock) {
+        return Book.builder()
+                .id(UUID.randomUUID())
+                .title(title)
+                .author(author)
+                .isbn(UUID.randomUUID().toString().substring(0, 13))
+                .publicationYear(2000)
+                .genre(Genre.TECHNOLOGY)
+                .stock(stock)
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package com.acikgozkaan.book_service.unit;
+
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import com.acikgozkaan.book_service.service.impl.BookTrigramIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookTrigramIndexTest {
+
+    @InjectMocks
+    private BookTrigramIndex index;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private Book cleanCode;
+    private Book cleanArchitecture;
+    private Book dune;
+
+    @BeforeEach
+    void setUp() {
+        cleanCode = book("Clean Code", "Robert Martin", "9780132350884", Genre.TECHNOLOGY);
+        cleanArchitecture = book("Clean Architecture", "Robert Martin", "9780134494166", Genre.TECHNOLOGY);
+        dune = book("Dune", "Frank Herbert", "9780441013593", Genre.SCIENCE_FICTION);
+
+        ReflectionTestUtils.setField(index, "enabled", true);
+        when(bookRepository.findFirst1000ByOrderById()).thenReturn(List.of(cleanCode, cleanArchitecture, dune));
+        when(bookRepository.findFirst1000ByIdGreaterThanOrderById(any())).thenReturn(List.of());
+        index.rebuild();
+    }
+
+    @Test
+    @DisplayName("Should match substrings case-insensitively across combined criteria")
+    void shouldMatchSubstrings() {
+        Optional<Page<UUID>> result = index.search("CLEAN", "martin", null, null, PageRequest.of(0, 10));
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getContent()).containsExactly(cleanCode.getId(), cleanArchitecture.getId());
+    }
+
+    @Test
+    @DisplayName("Should page matches and report the full total")
+    void shouldPageMatches() {
+        Page<UUID> page = index.search("clean", null, null, Genre.TECHNOLOGY, PageRequest.of(1, 1)).orElseThrow();
+
+        assertThat(page.getContent()).containsExactly(cleanArchitecture.getId());
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject trigram candidates that do not contain the whole term")
+    void shouldVerifyCandidates() {
+        Page<UUID> page = index.search("clean coda", null, null, null, PageRequest.of(0, 10)).orElseThrow();
+
+        assertThat(page.getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reflect updates and deletes without a rebuild")
+    void shouldApplyChanges() {
+        index.onBookChanged(new BookChangedEvent(dune.getId(), new BookResponse(
+                dune.getId(), "Dune Messiah", "Frank Herbert", dune.getIsbn(), 1969, Genre.SCIENCE_FICTION, 2)));
+        index.onBookChanged(BookChangedEvent.deleted(cleanCode.getId()));
+
+        assertThat(index.search("messiah", null, null, null, PageRequest.of(0, 10)).orElseThrow().getContent())
+                .containsExactly(dune.getId());
+        assertThat(index.search("clean", null, null, null, PageRequest.of(0, 10)).orElseThrow().getContent())
+                .containsExactly(cleanArchitecture.getId());
+    }
+
+    @Test
+    @DisplayName("Should keep serving searches during a rebuild and replay changes made meanwhile")
+    void shouldRebuildAsideAndReplayChanges() {
+        when(bookRepository.findFirst1000ByOrderById()).thenAnswer(invocation -> {
+            Optional<Page<UUID>> during = CompletableFuture
+                    .supplyAsync(() -> index.search("dune", null, null, null, PageRequest.of(0, 10)))
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(during).isPresent();
+
+            index.onBookChanged(new BookChangedEvent(dune.getId(), new BookResponse(
+                    dune.getId(), "Dune Messiah", "Frank Herbert", dune.getIsbn(), 1969, Genre.SCIENCE_FICTION, 2)));
+            return List.of(cleanCode, cleanArchitecture, dune);
+        });
+
+        index.rebuild();
+
+        assertThat(index.search("messiah", null, null, null, PageRequest.of(0, 10)).orElseThrow().getContent())
+                .containsExactly(dune.getId());
+    }
+
+    @Test
+    @DisplayName("Should skip stock-only changes without taking the write lock")
+    void shouldSkipStockOnlyChangesUnderReadLock() {
+        ReentrantReadWriteLock lock = (ReentrantReadWriteLock) ReflectionTestUtils.getField(index, "lock");
+        lock.readLock().lock();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> index.onBookChanged(new BookChangedEvent(
+                    dune.getId(), new BookResponse(dune.getId(), dune.getTitle(), dune.getAuthor(),
+                    dune.getIsbn(), 2000, Genre.SCIENCE_FICTION, 0))));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Test
+    @DisplayName("Should defer to the database for short terms and sorted pages")
+    void shouldDeferWhenNotIndexable() {
+        assertThat(index.search("du", null, null, null, PageRequest.of(0, 10))).isEmpty();
+        assertThat(index.search(null, null, null, Genre.TECHNOLOGY, PageRequest.of(0, 10))).isEmpty();
+        assertThat(index.search("dune", null, null, null, PageRequest.of(0, 10, Sort.by("title")))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should fold case the same way whatever the default locale")
+    void shouldIgnoreDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            index.onBookChanged(new BookChangedEvent(dune.getId(), new BookResponse(
+                    dune.getId(), "DUNE IN WINTER", "Frank Herbert", dune.getIsbn(), 1965, Genre.SCIENCE_FICTION, 1)));
+
+            assertThat(index.search("dune in winter", null, null, null, PageRequest.of(0, 10)).orElseThrow()
+                    .getContent()).containsExactly(dune.getId());
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep ids resolvable across table growth, removals and compaction")
+    void shouldTrackManyBooks() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            index.onBookChanged(new BookChangedEvent(id, new BookResponse(
+                    id, "Volume " + i, "Series Author", "isbn-" + i, 2000, Genre.HISTORY, 1)));
+        }
+        for (int i = 0; i < 3000; i += 2) {
+            index.onBookChanged(BookChangedEvent.deleted(ids.get(i)));
+        }
+
+        assertThat(index.search("volume 1234", null, null, null, PageRequest.of(0, 10)).orElseThrow()
+                .getContent()).isEmpty();
+        assertThat(index.search("volume 1235", null, null, null, PageRequest.of(0, 10)).orElseThrow()
+                .getContent()).containsExactly(ids.get(1235));
+        assertThat(index.search(null, "series", null, null, PageRequest.of(0, 10)).orElseThrow()
+                .getTotalElements()).isEqualTo(1500);
+    }
+
+    private Book book(String title, String author, String isbn, Genre genre) {
+        return Book.builder()
+                .id(UUID.randomUUID())
+                .title(title)
+                .author(author)
+                .isbn(isbn)
+                .publicationYear(2000)
+                .genre(genre)
+                .stock(1)
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.acikgozkaan.book_service.unit;
+
+import com.acikgozkaan.book_service.cache.CaffeineBookCache;
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.entity.Genre;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaffeineBookCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CaffeineBookCache cache;
+    private BookResponse book;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CaffeineBookCache(100, Duration.ofMinutes(5), meterRegistry);
+        book = new BookResponse(UUID.randomUUID(), "Clean Code", "Robert Martin", "9780132350884",
+                2008, Genre.TECHNOLOGY, 5);
+    }
+
+    @Test
+    @DisplayName("Should load once and serve later lookups from memory")
+    void shouldCacheLoadedBook() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(book.id(), id -> { loads.incrementAndGet(); return book; });
+        BookResponse cached = cache.get(book.id(), id -> { loads.incrementAndGet(); return book; });
+
+        assertThat(cached).isEqualTo(book);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "books").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "books").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reload after evict")
+    void shouldReloadAfterEvict() {
+        cache.get(book.id(), id -> book);
+        BookResponse lowered = new BookResponse(book.id(), book.title(), book.author(), book.isbn(),
+                book.publicationYear(), book.genre(), 4);
+
+        cache.evict(book.id());
+        AtomicInteger loads = new AtomicInteger();
+        BookResponse reloaded = cache.get(book.id(), id -> { loads.incrementAndGet(); return lowered; });
+
+        assertThat(reloaded.stock()).isEqualTo(4);
+        assertThat(loads).hasValue(1);
+    }
+}
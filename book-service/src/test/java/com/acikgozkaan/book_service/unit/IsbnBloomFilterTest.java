@@ -0,0 +1,79 @@
+package com.acikgozkaan.book_service.unit;
+
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.response.BookResponse;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import com.acikgozkaan.book_service.service.impl.IsbnBloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IsbnBloomFilterTest {
+
+    private static final int BOOKS = 10_000;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookRepository bookRepository;
+    private IsbnBloomFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookRepository = mock(BookRepository.class);
+        filter = new IsbnBloomFilter(bookRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                meterRegistry, BOOKS, 0.01);
+    }
+
+    @Test
+    @DisplayName("Should treat every ISBN as a possible hit until the filter is built")
+    void shouldFallThroughBeforeBuild() {
+        assertThat(filter.mightContain("9780132350884")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should never miss a stored ISBN and keep false positives near the configured rate")
+    void shouldHaveNoFalseNegatives() {
+        List<String> stored = isbns(0, BOOKS);
+        when(bookRepository.count()).thenReturn((long) BOOKS);
+        when(bookRepository.streamAllIsbns()).thenReturn(stored.stream());
+
+        filter.rebuild();
+
+        assertThat(stored).allMatch(filter::mightContain);
+        long falsePositives = isbns(BOOKS, BOOKS * 2).stream().filter(filter::mightContain).count();
+        assertThat(falsePositives).isLessThan(BOOKS / 50);
+        assertThat(meterRegistry.get("book.isbn.filter.memory").gauge().value()).isPositive();
+        assertThat(meterRegistry.get("book.isbn.filter.expected.fpp").gauge().value()).isLessThan(0.02);
+    }
+
+    @Test
+    @DisplayName("Should learn ISBNs from committed book changes")
+    void shouldAddChangedBooks() {
+        when(bookRepository.count()).thenReturn(0L);
+        when(bookRepository.streamAllIsbns()).thenReturn(List.<String>of().stream());
+        filter.rebuild();
+
+        BookResponse book = new BookResponse(UUID.randomUUID(), "Clean Code", "Robert Martin", "9780132350884",
+                2008, Genre.TECHNOLOGY, 5);
+        filter.onBookChanged(new BookChangedEvent(book.id(), book));
+
+        assertThat(filter.mightContain("9780132350884")).isTrue();
+        assertThat(meterRegistry.get("book.isbn.filter.checks").tag("result", "maybe").counter().count()).isEqualTo(1);
+    }
+
+    private static List<String> isbns(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> String.format("978%010d", i)).toList();
+    }
+}
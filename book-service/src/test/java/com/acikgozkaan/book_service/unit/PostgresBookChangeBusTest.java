@@ -0,0 +1,114 @@
+package com.acikgozkaan.book_service.unit;
+
+import com.acikgozkaan.book_service.bus.BookChangeNotification;
+import com.acikgozkaan.book_service.bus.PostgresBookChangeBus;
+import com.acikgozkaan.book_service.bus.RemoteBookChangesEvent;
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.BookStockEvent;
+import com.acikgozkaan.book_service.entity.Genre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PostgresBookChangeBusTest {
+
+    @Mock private DataSource dataSource;
+    @Mock private Connection connection;
+    @Mock private PreparedStatement statement;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private PostgresBookChangeBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new PostgresBookChangeBus(dataSource, eventPublisher, true, Duration.ofMillis(200));
+        ReflectionTestUtils.setField(bus, "running", true);
+    }
+
+    @Test
+    @DisplayName("Should send one notification per flush with each changed book listed once")
+    void shouldBatchAndDedupeChanges() throws Exception {
+        UUID hot = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+
+        for (int i = 0; i < 50; i++) {
+            bus.onBookChanged(BookChangedEvent.deleted(hot));
+        }
+        bus.onBookChanged(BookChangedEvent.deleted(other));
+        bus.onBookChanged(new BookChangedEvent(UUID.randomUUID(), null, true));
+        bus.flush();
+        bus.flush();
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(statement).setString(1, PostgresBookChangeBus.CHANNEL);
+        verify(statement).setString(eq(2), payload.capture());
+        verify(statement, times(1)).execute();
+        assertThat(BookChangeNotification.decode(payload.getValue()).bookIds()).containsExactlyInAnyOrder(hot, other);
+    }
+
+    @Test
+    @DisplayName("Should ignore its own notifications and republish others locally")
+    void shouldPublishRemoteChangesOnly() {
+        UUID bookId = UUID.randomUUID();
+        String self = (String) ReflectionTestUtils.getField(bus, "instanceId");
+
+        bus.receive(new BookChangeNotification(self, List.of(bookId)).encode());
+        verifyNoInteractions(eventPublisher);
+
+        bus.receive(new BookChangeNotification("other-replica", List.of(bookId, bookId)).encode());
+        verify(eventPublisher).publishEvent(new RemoteBookChangesEvent(Set.of(bookId)));
+    }
+
+    @Test
+    @DisplayName("Should mark only the books whose stock changed")
+    void shouldMarkStockChanges() throws Exception {
+        UUID borrowed = UUID.randomUUID();
+        UUID renamed = UUID.randomUUID();
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+
+        bus.onStockChanged(new BookStockEvent(borrowed, "Borrowed", 2, Genre.HISTORY, 3));
+        bus.onBookChanged(BookChangedEvent.deleted(borrowed));
+        bus.onBookChanged(BookChangedEvent.deleted(renamed));
+        bus.flush();
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(statement).setString(eq(2), payload.capture());
+        BookChangeNotification notification = BookChangeNotification.decode(payload.getValue());
+        assertThat(notification.bookIds()).containsExactlyInAnyOrder(borrowed, renamed);
+        assertThat(notification.stockChanged()).containsExactly(borrowed);
+
+        bus.receive(new BookChangeNotification("other-replica", List.of(borrowed, renamed), Set.of(borrowed)).encode());
+        verify(eventPublisher).publishEvent(new RemoteBookChangesEvent(Set.of(borrowed, renamed), Set.of(borrowed)));
+    }
+
+    @Test
+    @DisplayName("Should reject malformed payloads")
+    void shouldRejectMalformedPayload() {
+        assertThatThrownBy(() -> BookChangeNotification.decode("no-separator"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
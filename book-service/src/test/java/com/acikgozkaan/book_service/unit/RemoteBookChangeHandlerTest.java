@@ -0,0 +1,64 @@
+package com.acikgozkaan.book_service.unit;
+
+import com.acikgozkaan.book_service.bus.RemoteBookChangeHandler;
+import com.acikgozkaan.book_service.bus.RemoteBookChangesEvent;
+import com.acikgozkaan.book_service.config.StockUpdatePublisher;
+import com.acikgozkaan.book_service.dto.BookChangedEvent;
+import com.acikgozkaan.book_service.dto.BookStockEvent;
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.mapper.BookMapper;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RemoteBookChangeHandlerTest {
+
+    @Mock private BookRepository bookRepository;
+    @Mock private StockUpdatePublisher stockUpdatePublisher;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    @DisplayName("Should stream stock only for remote changes marked as stock changes")
+    void shouldStreamOnlyStockChanges() {
+        Book borrowed = book("Borrowed", 2);
+        Book renamed = book("Renamed", 5);
+        Set<UUID> ids = Set.of(borrowed.getId(), renamed.getId());
+        when(bookRepository.findAllById(ids)).thenReturn(List.of(borrowed, renamed));
+        RemoteBookChangeHandler handler = new RemoteBookChangeHandler(
+                bookRepository, new BookMapper(), stockUpdatePublisher, eventPublisher);
+
+        handler.onRemoteChanges(new RemoteBookChangesEvent(ids, Set.of(borrowed.getId())));
+
+        verify(eventPublisher, times(2)).publishEvent(any(BookChangedEvent.class));
+        verify(stockUpdatePublisher).publish(new BookStockEvent(borrowed.getId(), "Borrowed", 2, Genre.HISTORY, null));
+        verify(stockUpdatePublisher, times(1)).publish(any());
+    }
+
+    private static Book book(String title, int stock) {
+        return Book.builder()
+                .id(UUID.randomUUID())
+                .title(title)
+                .author("Someone")
+                .isbn(UUID.randomUUID().toString().substring(0, 13))
+                .publicationYear(2000)
+                .genre(Genre.HISTORY)
+                .stock(stock)
+                .stockSlots(1)
+                .build();
+    }
+}
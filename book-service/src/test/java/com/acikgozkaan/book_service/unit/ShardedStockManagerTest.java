@@ -0,0 +1,116 @@
+package com.acikgozkaan.book_service.unit;
+
+import com.acikgozkaan.book_service.entity.Book;
+import com.acikgozkaan.book_service.entity.BookStockSlot;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.repository.BookStockSlotRepository;
+import com.acikgozkaan.book_service.service.impl.ShardedStockManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedStockManagerTest {
+
+    @InjectMocks
+    private ShardedStockManager shardedStockManager;
+
+    @Mock
+    private BookStockSlotRepository slotRepository;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        book = Book.builder()
+                .id(UUID.randomUUID())
+                .title("Launch Day")
+                .author("Famous Author")
+                .isbn("9780000000001")
+                .publicationYear(2025)
+                .genre(Genre.FICTION)
+                .stock(10)
+                .stockSlots(4)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should spread stock evenly across slots on rebalance")
+    @SuppressWarnings("unchecked")
+    void shouldSpreadStockAcrossSlots() {
+        shardedStockManager.rebalance(book);
+
+        ArgumentCaptor<List<BookStockSlot>> captor = ArgumentCaptor.forClass(List.class);
+        verify(slotRepository).deleteByBookId(book.getId());
+        verify(slotRepository).saveAll(captor.capture());
+
+        assertThat(captor.getValue()).extracting(BookStockSlot::getStock).containsExactly(3, 3, 2, 2);
+        assertThat(book.getAvailableStock()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should only drop slots when book is no longer sharded")
+    void shouldDropSlotsWhenUnsharded() {
+        book.setStockSlots(1);
+
+        shardedStockManager.rebalance(book);
+
+        verify(slotRepository).deleteByBookId(book.getId());
+        verify(slotRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("Should spill over to other slots when the chosen slot is empty")
+    void shouldSpillOverToOtherSlots() {
+        when(slotRepository.decreaseSlotIfAvailable(eq(book.getId()), anyInt())).thenReturn(0, 0, 1);
+
+        assertThat(shardedStockManager.tryDecrease(book)).isTrue();
+        verify(slotRepository, times(3)).decreaseSlotIfAvailable(eq(book.getId()), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should report out of stock when every slot is empty")
+    void shouldFailWhenAllSlotsEmpty() {
+        when(slotRepository.decreaseSlotIfAvailable(eq(book.getId()), anyInt())).thenReturn(0);
+
+        assertThat(shardedStockManager.tryDecrease(book)).isFalse();
+        verify(slotRepository, times(4)).decreaseSlotIfAvailable(eq(book.getId()), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should take several copies in ascending slot order")
+    void shouldTakeSeveralCopiesInSlotOrder() {
+        when(slotRepository.decreaseSlotIfAvailable(book.getId(), 0)).thenReturn(1, 0);
+        when(slotRepository.decreaseSlotIfAvailable(book.getId(), 1)).thenReturn(0);
+        when(slotRepository.decreaseSlotIfAvailable(book.getId(), 2)).thenReturn(1, 1);
+
+        assertThat(shardedStockManager.tryDecrease(book, 3)).isTrue();
+
+        InOrder inOrder = inOrder(slotRepository);
+        inOrder.verify(slotRepository, times(2)).decreaseSlotIfAvailable(book.getId(), 0);
+        inOrder.verify(slotRepository).decreaseSlotIfAvailable(book.getId(), 1);
+        inOrder.verify(slotRepository, times(2)).decreaseSlotIfAvailable(book.getId(), 2);
+        verify(slotRepository, never()).decreaseSlotIfAvailable(book.getId(), 3);
+    }
+
+    @Test
+    @DisplayName("Should return several copies to one slot in a single statement")
+    void shouldReturnSeveralCopiesToOneSlot() {
+        shardedStockManager.increase(book, 3);
+
+        verify(slotRepository).increaseSlot(eq(book.getId()), anyInt(), eq(3));
+    }
+}
@@ -0,0 +1,187 @@
+package com.acikgozkaan.book_service.unit;
+
+import com.acikgozkaan.book_service.config.StockFrameBroadcaster;
+import com.acikgozkaan.book_service.config.StockUpdatePublisher;
+import com.acikgozkaan.book_service.config.StockUpdatePublisher.OverflowPolicy;
+import com.acikgozkaan.book_service.dto.BookStockEvent;
+import com.acikgozkaan.book_service.dto.BookStockLevel;
+import com.acikgozkaan.book_service.dto.StockSubscription;
+import com.acikgozkaan.book_service.dto.response.StockFrame;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscription;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockFrameBroadcasterTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UUID history = UUID.randomUUID();
+    private final UUID otherHistory = UUID.randomUUID();
+    private final UUID science = UUID.randomUUID();
+
+    private StockUpdatePublisher publisher;
+    private StockFrameBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new StockUpdatePublisher(new SimpleMeterRegistry(), 16, OverflowPolicy.DROP_OLDEST, 16);
+        broadcaster = broadcaster(100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(broadcaster, "stop");
+    }
+
+    @Test
+    @DisplayName("Should open with a snapshot and then send one coalesced delta frame per interval")
+    void shouldSendSnapshotThenCoalescedDeltas() throws Exception {
+        stubHistoryLevels();
+        FrameSubscriber subscriber = subscribe(new StockSubscription(null, Genre.HISTORY, false));
+        subscriber.request(Long.MAX_VALUE);
+
+        publisher.publish(new BookStockEvent(history, "History", 3, Genre.HISTORY, 4));
+        publisher.publish(new BookStockEvent(history, "History", 2, Genre.HISTORY, 3));
+        publisher.publish(new BookStockEvent(science, "Science", 9, Genre.SCIENCE, 8));
+        tick();
+        tick();
+        subscriber.awaitFrames(2);
+
+        assertThat(subscriber.frames).extracting(StockFrame::type)
+                .containsExactly(StockFrameBroadcaster.SNAPSHOT, StockFrameBroadcaster.DELTA);
+        assertThat(subscriber.frames.get(0).bookIds()).containsExactly(history, otherHistory);
+        assertThat(subscriber.frames.get(1).bookIds()).containsExactly(history);
+        assertThat(subscriber.frames.get(1).stock()).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("Should send a fresh snapshot to a subscriber that missed a frame")
+    void shouldResnapshotStaleSubscriber() throws Exception {
+        stubHistoryLevels();
+        FrameSubscriber subscriber = subscribe(new StockSubscription(null, Genre.HISTORY, false));
+        subscriber.request(1);
+        subscriber.awaitFrames(1);
+
+        publisher.publish(new BookStockEvent(history, "History", 3, Genre.HISTORY, 4));
+        tick();
+        subscriber.request(1);
+        subscriber.awaitFrames(2);
+
+        assertThat(subscriber.frames).extracting(StockFrame::type)
+                .containsExactly(StockFrameBroadcaster.SNAPSHOT, StockFrameBroadcaster.SNAPSHOT);
+        verify(bookRepository, times(2)).findStockLevels(eq(Genre.HISTORY), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should load snapshots off the caller thread and share one query per filter")
+    void shouldShareSnapshotQueryOffCallerThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> queryThreads = new CopyOnWriteArrayList<>();
+        when(bookRepository.findStockLevels(eq(Genre.HISTORY), any(Pageable.class))).thenAnswer(invocation -> {
+            queryThreads.add(Thread.currentThread().getName());
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(new BookStockLevel(history, 4));
+        });
+
+        FrameSubscriber first = subscribe(new StockSubscription(null, Genre.HISTORY, false));
+        FrameSubscriber second = subscribe(new StockSubscription(null, Genre.HISTORY, false));
+        first.request(1);
+        second.request(1);
+        release.countDown();
+        first.awaitFrames(1);
+        second.awaitFrames(1);
+
+        assertThat(queryThreads).singleElement().asString().startsWith("boundedElastic");
+        assertThat(second.frames.get(0).bookIds()).containsExactly(history);
+    }
+
+    @Test
+    @DisplayName("Should cap unfiltered snapshots at the snapshot limit and mark them truncated")
+    void shouldTruncateSnapshotAtLimit() throws Exception {
+        ReflectionTestUtils.invokeMethod(broadcaster, "stop");
+        broadcaster = broadcaster(1);
+        stubHistoryLevels();
+        FrameSubscriber subscriber = subscribe(new StockSubscription(null, Genre.HISTORY, false));
+        subscriber.request(1);
+        subscriber.awaitFrames(1);
+
+        assertThat(subscriber.frames.get(0).bookIds()).containsExactly(history);
+        assertThat(subscriber.frames.get(0).truncated()).isTrue();
+    }
+
+    private StockFrameBroadcaster broadcaster(int snapshotLimit) {
+        StockFrameBroadcaster broadcaster = new StockFrameBroadcaster(
+                publisher, bookRepository, objectMapper, Duration.ofHours(1), snapshotLimit);
+        ReflectionTestUtils.invokeMethod(broadcaster, "start");
+        return broadcaster;
+    }
+
+    private void stubHistoryLevels() {
+        when(bookRepository.findStockLevels(eq(Genre.HISTORY), any(Pageable.class))).thenReturn(List.of(
+                new BookStockLevel(history, 4), new BookStockLevel(otherHistory, 1)));
+    }
+
+    private void tick() {
+        ReflectionTestUtils.invokeMethod(broadcaster, "tick");
+    }
+
+    private FrameSubscriber subscribe(StockSubscription subscription) {
+        FrameSubscriber subscriber = new FrameSubscriber();
+        broadcaster.getFrames(subscription).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private class FrameSubscriber extends BaseSubscriber<ServerSentEvent<String>> {
+
+        private final List<StockFrame> frames = new CopyOnWriteArrayList<>();
+
+        private void awaitFrames(int count) throws InterruptedException {
+            for (int attempt = 0; attempt < 100 && frames.size() < count; attempt++) {
+                Thread.sleep(50);
+            }
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(ServerSentEvent<String> value) {
+            try {
+                frames.add(objectMapper.readValue(value.data(), StockFrame.class));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
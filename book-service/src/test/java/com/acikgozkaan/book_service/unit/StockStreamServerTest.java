@@ -0,0 +1,144 @@
+package com.acikgozkaan.book_service.unit;
+
+import com.acikgozkaan.book_service.config.StockFrameBroadcaster;
+import com.acikgozkaan.book_service.config.StockUpdatePublisher;
+import com.acikgozkaan.book_service.config.StockUpdatePublisher.OverflowPolicy;
+import com.acikgozkaan.book_service.dto.BookStockEvent;
+import com.acikgozkaan.book_service.entity.Genre;
+import com.acikgozkaan.book_service.security.JwtService;
+import com.acikgozkaan.book_service.stream.StockStreamServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.netty.http.client.HttpClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class StockStreamServerTest {
+
+    private static final String SECRET = "testsecretkey12345678901234567890123456789012";
+    private static final String STOCK_PATH = "/api/v1/books/stream/stock";
+
+    private SimpleMeterRegistry meterRegistry;
+    private StockUpdatePublisher publisher;
+    private StockStreamServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = new StockUpdatePublisher(meterRegistry, 16, OverflowPolicy.DROP_OLDEST, 16);
+        server = new StockStreamServer(publisher, mock(StockFrameBroadcaster.class), new JwtService(SECRET),
+                new ObjectMapper(), meterRegistry, true, 0, 1, Duration.ofSeconds(30), Duration.ofSeconds(5));
+        server.start();
+        client = HttpClient.create().port(server.port());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Should reject stream requests without a valid token")
+    void shouldRejectAnonymousWatchers() {
+        Integer status = client.get().uri(STOCK_PATH)
+                .response()
+                .map(response -> response.status().code())
+                .block(Duration.ofSeconds(5));
+
+        assertThat(status).isEqualTo(401);
+    }
+
+    @Test
+    @DisplayName("Should not accept a token passed in the query string")
+    void shouldRejectQueryStringToken() {
+        Integer status = client.get().uri(STOCK_PATH + "?access_token=" + token())
+                .response()
+                .map(response -> response.status().code())
+                .block(Duration.ofSeconds(5));
+
+        assertThat(status).isEqualTo(401);
+    }
+
+    @Test
+    @DisplayName("Should stream stock events as SSE and enforce the connection cap")
+    void shouldStreamAndCapConnections() throws Exception {
+        List<String> chunks = new CopyOnWriteArrayList<>();
+        UUID bookId = UUID.randomUUID();
+
+        Disposable watcher = authorized().get().uri(STOCK_PATH + "?bookIds=" + bookId)
+                .responseContent()
+                .asString(StandardCharsets.UTF_8)
+                .subscribe(chunks::add);
+
+        awaitGauge("book.stock.stream.subscribers", 1);
+        Integer secondStatus = authorized().get().uri(STOCK_PATH)
+                .response()
+                .map(response -> response.status().code())
+                .block(Duration.ofSeconds(5));
+
+        publisher.publish(new BookStockEvent(bookId, "Watched", 2, Genre.HISTORY, 3));
+        for (int attempt = 0; attempt < 50 && chunks.isEmpty(); attempt++) {
+            Thread.sleep(50);
+        }
+        watcher.dispose();
+
+        assertThat(secondStatus).isEqualTo(503);
+        assertThat(String.join("", chunks)).contains("id:").contains("\"bookId\":\"" + bookId + "\"");
+    }
+
+    @Test
+    @DisplayName("Should free the connection slot when a watcher disconnects")
+    void shouldReleaseSlotOnDisconnect() throws Exception {
+        Disposable watcher = authorized().get().uri(STOCK_PATH)
+                .responseContent()
+                .subscribe();
+        awaitGauge("book.stock.stream.subscribers", 1);
+        watcher.dispose();
+        awaitGauge("book.stream.server.connections", 0);
+
+        Integer status = authorized().get().uri(STOCK_PATH)
+                .response()
+                .map(response -> response.status().code())
+                .block(Duration.ofSeconds(5));
+
+        assertThat(status).isEqualTo(200);
+    }
+
+    private void awaitGauge(String name, double expected) throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && gauge(name) != expected; attempt++) {
+            Thread.sleep(50);
+        }
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private HttpClient authorized() {
+        String token = token();
+        return client.headers(headers -> headers.add("Authorization", "Bearer " + token));
+    }
+
+    private String token() {
+        return Jwts.builder()
+                .subject(UUID.randomUUID().toString())
+                .claim("role", "PATRON")
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
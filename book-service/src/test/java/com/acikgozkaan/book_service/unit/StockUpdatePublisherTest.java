@@ -0,0 +1,253 @@
+package com.acikgozkaan.book_service.unit;
+
+import com.acikgozkaan.book_service.config.StockUpdatePublisher;
+import com.acikgozkaan.book_service.config.StockUpdatePublisher.OverflowPolicy;
+import com.acikgozkaan.book_service.dto.BookStockEvent;
+import com.acikgozkaan.book_service.dto.StockSubscription;
+import com.acikgozkaan.book_service.entity.Genre;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockUpdatePublisherTest {
+
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+    private final UUID third = UUID.randomUUID();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Should conflate a slow subscriber's backlog to the latest event per book")
+    void shouldConflatePerBook() {
+        StockUpdatePublisher publisher = new StockUpdatePublisher(meterRegistry, 8, OverflowPolicy.DROP_OLDEST, 16);
+        ManualSubscriber subscriber = subscribe(publisher);
+
+        for (int stock = 5; stock >= 1; stock--) {
+            publisher.publish(event(first, "First", stock));
+        }
+        publisher.publish(event(second, "Second", 3));
+        subscriber.request(10);
+
+        assertThat(subscriber.received).extracting(BookStockEvent::stock).containsExactly(1, 3);
+        assertThat(count("conflated")).isEqualTo(4);
+        assertThat(count("emitted")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should drop the oldest pending book when the buffer is full")
+    void shouldDropOldest() {
+        StockUpdatePublisher publisher = new StockUpdatePublisher(meterRegistry, 2, OverflowPolicy.DROP_OLDEST, 16);
+        ManualSubscriber subscriber = subscribe(publisher);
+
+        publisher.publish(event(first, "First", 1));
+        publisher.publish(event(second, "Second", 2));
+        publisher.publish(event(third, "Third", 3));
+        subscriber.request(10);
+
+        assertThat(subscriber.received).extracting(BookStockEvent::bookId).containsExactly(second, third);
+        assertThat(count("dropped")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should complete a subscriber that overflows under the disconnect policy")
+    void shouldDisconnectSlowSubscriber() {
+        StockUpdatePublisher publisher = new StockUpdatePublisher(meterRegistry, 1, OverflowPolicy.DISCONNECT, 16);
+        ManualSubscriber slow = subscribe(publisher);
+        ManualSubscriber fast = subscribe(publisher);
+        fast.request(Long.MAX_VALUE);
+
+        publisher.publish(event(first, "First", 1));
+        publisher.publish(event(second, "Second", 2));
+
+        assertThat(slow.completed).isTrue();
+        assertThat(fast.completed).isFalse();
+        assertThat(fast.received).hasSize(2);
+        assertThat(meterRegistry.get("book.stock.stream.disconnects").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("book.stock.stream.subscribers").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should deliver only events matching a subscriber's books, genre and zero-crossing filter")
+    void shouldFilterSubscriptions() {
+        StockUpdatePublisher publisher = new StockUpdatePublisher(meterRegistry, 8, OverflowPolicy.DROP_OLDEST, 16);
+        ManualSubscriber byBook = subscribe(publisher, new StockSubscription(Set.of(first), null, false));
+        ManualSubscriber byGenre = subscribe(publisher, new StockSubscription(null, Genre.HISTORY, false));
+        ManualSubscriber soldOut = subscribe(publisher, new StockSubscription(null, null, true));
+        List.of(byBook, byGenre, soldOut).forEach(subscriber -> subscriber.request(Long.MAX_VALUE));
+
+        publisher.publish(new BookStockEvent(first, "First", 2, Genre.SCIENCE, 3));
+        publisher.publish(new BookStockEvent(second, "Second", 0, Genre.HISTORY, 1));
+        publisher.publish(new BookStockEvent(third, "Third", 4, Genre.HISTORY, 5));
+
+        assertThat(byBook.received).extracting(BookStockEvent::bookId).containsExactly(first);
+        assertThat(byGenre.received).extracting(BookStockEvent::bookId).containsExactly(second, third);
+        assertThat(soldOut.received).extracting(BookStockEvent::bookId).containsExactly(second);
+    }
+
+    @Test
+    @DisplayName("Should drop index entries when filtered subscribers cancel")
+    @SuppressWarnings("unchecked")
+    void shouldUnregisterOnCancel() {
+        StockUpdatePublisher publisher = new StockUpdatePublisher(meterRegistry, 8, OverflowPolicy.DROP_OLDEST, 16);
+        ManualSubscriber subscriber = subscribe(publisher, new StockSubscription(Set.of(first, second), null, false));
+
+        subscriber.cancel();
+
+        Map<UUID, ?> byBook = (Map<UUID, ?>) ReflectionTestUtils.getField(publisher, "byBook");
+        assertThat(byBook).isEmpty();
+        assertThat(meterRegistry.get("book.stock.stream.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should replay only the events missed since Last-Event-ID")
+    void shouldReplayMissedEvents() {
+        StockUpdatePublisher publisher = new StockUpdatePublisher(meterRegistry, 8, OverflowPolicy.DROP_OLDEST, 16);
+        ManualSubscriber before = subscribe(publisher);
+        before.request(Long.MAX_VALUE);
+
+        publisher.publish(event(first, "First", 3));
+        long lastSeen = Long.parseLong(before.ids.getLast());
+        publisher.publish(event(second, "Second", 2));
+        publisher.publish(event(first, "First", 1));
+
+        ManualSubscriber resumed = subscribe(publisher, StockSubscription.all(), lastSeen);
+        resumed.request(Long.MAX_VALUE);
+        publisher.publish(event(third, "Third", 4));
+
+        assertThat(resumed.received).extracting(BookStockEvent::bookId).containsExactly(second, first, third);
+        assertThat(resumed.ids).containsExactly(Long.toString(lastSeen + 1), Long.toString(lastSeen + 2),
+                Long.toString(lastSeen + 3));
+    }
+
+    @Test
+    @DisplayName("Should ask the client to resync when the missed events are no longer retained")
+    void shouldRequestResyncForOldGap() {
+        StockUpdatePublisher publisher = new StockUpdatePublisher(meterRegistry, 8, OverflowPolicy.DROP_OLDEST, 4);
+        ManualSubscriber before = subscribe(publisher);
+        before.request(Long.MAX_VALUE);
+
+        publisher.publish(event(first, "First", 9));
+        long lastSeen = Long.parseLong(before.ids.getLast());
+        for (int stock = 8; stock > 2; stock--) {
+            publisher.publish(event(second, "Second", stock));
+        }
+
+        ManualSubscriber stale = subscribe(publisher, StockSubscription.all(), lastSeen);
+        ManualSubscriber foreign = subscribe(publisher, StockSubscription.all(), 42L);
+        stale.request(Long.MAX_VALUE);
+        foreign.request(Long.MAX_VALUE);
+
+        assertThat(stale.types).containsExactly(StockUpdatePublisher.RESYNC_EVENT);
+        assertThat(stale.received).isEmpty();
+        assertThat(foreign.types).containsExactly(StockUpdatePublisher.RESYNC_EVENT);
+    }
+
+    @Test
+    @DisplayName("Should deliver every event exactly once while writers publish concurrently and a client resumes")
+    void shouldPublishConcurrentlyWithoutLosingOrDuplicatingEvents() throws Exception {
+        StockUpdatePublisher publisher = new StockUpdatePublisher(meterRegistry, 4096, OverflowPolicy.DROP_OLDEST, 4096);
+        ManualSubscriber live = subscribe(publisher);
+        live.request(Long.MAX_VALUE);
+        publisher.publish(event(first, "First", 0));
+        long lastSeen = Long.parseLong(live.ids.getLast());
+
+        int writers = 8;
+        int eventsPerWriter = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int writer = 0; writer < writers; writer++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < eventsPerWriter; i++) {
+                    publisher.publish(event(UUID.randomUUID(), "Book", i));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        ManualSubscriber resumed = subscribe(publisher, StockSubscription.all(), lastSeen);
+        resumed.request(Long.MAX_VALUE);
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        int total = writers * eventsPerWriter;
+        assertThat(live.ids).hasSize(total + 1).doesNotHaveDuplicates();
+        assertThat(resumed.ids).hasSize(total).doesNotHaveDuplicates();
+    }
+
+    private BookStockEvent event(UUID bookId, String title, int stock) {
+        return new BookStockEvent(bookId, title, stock, Genre.FICTION, null);
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("book.stock.stream.events").tag("outcome", outcome).counter().count();
+    }
+
+    private ManualSubscriber subscribe(StockUpdatePublisher publisher) {
+        return subscribe(publisher, StockSubscription.all());
+    }
+
+    private ManualSubscriber subscribe(StockUpdatePublisher publisher, StockSubscription subscription) {
+        return subscribe(publisher, subscription, null);
+    }
+
+    private ManualSubscriber subscribe(StockUpdatePublisher publisher, StockSubscription subscription, Long lastEventId) {
+        ManualSubscriber subscriber = new ManualSubscriber();
+        publisher.getStream(subscription, lastEventId).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static class ManualSubscriber extends BaseSubscriber<ServerSentEvent<BookStockEvent>> {
+
+        private final List<BookStockEvent> received = new CopyOnWriteArrayList<>();
+        private final List<String> ids = new CopyOnWriteArrayList<>();
+        private final List<String> types = new CopyOnWriteArrayList<>();
+        private boolean completed;
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(ServerSentEvent<BookStockEvent> value) {
+            ids.add(value.id());
+            if (value.event() != null) {
+                types.add(value.event());
+            } else {
+                received.add(value.data());
+            }
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed = true;
+        }
+    }
+}
@@ -2,12 +2,21 @@ package com.acikgozkaan.borrowing_service.client;
 
 import com.acikgozkaan.borrowing_service.client.fallback.BookClientFallback;
 import com.acikgozkaan.borrowing_service.config.FeignClientInterceptor;
+import com.acikgozkaan.borrowing_service.dto.external.BookBatchRequest;
 import com.acikgozkaan.borrowing_service.dto.external.BookResponse;
+import com.acikgozkaan.borrowing_service.dto.external.ReservationReleaseRequest;
+import com.acikgozkaan.borrowing_service.dto.external.StockCommandBatchRequest;
+import com.acikgozkaan.borrowing_service.dto.external.StockCommandResult;
+import com.acikgozkaan.borrowing_service.dto.external.StockReservationRequest;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
+import java.util.Map;
 import java.util.UUID;
 
 @FeignClient(
@@ -18,13 +27,34 @@ import java.util.UUID;
 )
 public interface BookClient {
 
+    String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     @GetMapping("/{id}")
     BookResponse getBookById(@PathVariable("id") UUID id);
 
+    @PostMapping("/batch")
+    Map<UUID, BookResponse> getBooksByIds(@RequestBody BookBatchRequest request);
+
     @PutMapping("/{id}/decrease-stock")
     void decreaseStock(@PathVariable("id") UUID id);
 
+    @PutMapping("/{id}/reserve")
+    BookResponse reserveBook(@RequestHeader("Authorization") String authorization,
+                             @PathVariable("id") UUID id,
+                             @RequestHeader(IDEMPOTENCY_KEY) UUID reservationKey);
+
+    @PostMapping("/reservations/release")
+    StockCommandResult releaseReservations(@RequestHeader("Authorization") String authorization,
+                                           @RequestBody ReservationReleaseRequest request);
+
     @PutMapping("/{id}/increase-stock")
     void increaseStock(@PathVariable("id") UUID id);
 
+    @PostMapping("/reserve-stock")
+    void reserveStock(@RequestBody StockReservationRequest request);
+
+    @PostMapping("/stock-commands")
+    StockCommandResult applyStockCommands(@RequestHeader("Authorization") String authorization,
+                                          @RequestBody StockCommandBatchRequest request);
+
 }
\ No newline at end of file
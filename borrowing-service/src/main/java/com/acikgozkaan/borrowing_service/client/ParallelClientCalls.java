@@ -0,0 +1,92 @@
+package com.acikgozkaan.borrowing_service.client;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Runs independent remote calls side by side on virtual threads. The caller's Authorization header
+ * is read on the calling thread and handed to each call as a plain string; the servlet request
+ * itself never leaves that thread, since a call may outlive it after a timeout. A failure does not cancel the sibling call, so the caller learns whether a side effect
+ * happened and can compensate it; only the timeout interrupts what is still in flight, which on a
+ * virtual thread also aborts its blocking socket read.
+ */
+@Component
+public class ParallelClientCalls {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration timeout;
+
+    public ParallelClientCalls(@Value("${borrowing.remote-calls.timeout:5s}") Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public <A, B> Both<Outcome<A>, Outcome<B>> settle(Function<String, A> first, Function<String, B> second) {
+        String authorization = callerAuthorization();
+        Future<Object> firstResult = executor.submit(() -> first.apply(authorization));
+        Future<Object> secondResult = executor.submit(() -> second.apply(authorization));
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            return new Both<>(outcome(firstResult, deadline), outcome(secondResult, deadline));
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                    "Remote services did not answer within " + timeout.toMillis() + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while calling remote services");
+        } finally {
+            firstResult.cancel(true);
+            secondResult.cancel(true);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static String callerAuthorization() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return attributes.getRequest().getHeader("Authorization");
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Outcome<T> outcome(Future<Object> result, long deadline)
+            throws InterruptedException, TimeoutException {
+        try {
+            return new Outcome<>((T) result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS), null);
+        } catch (ExecutionException e) {
+            return new Outcome<>(null, rethrow(e.getCause()));
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    public record Both<A, B>(A first, B second) {}
+
+    public record Outcome<T>(T value, RuntimeException failure) {
+
+        public boolean succeeded() {
+            return failure == null;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.acikgozkaan.borrowing_service.config.FeignClientInterceptor;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 import java.util.UUID;
 
@@ -17,5 +18,5 @@ import java.util.UUID;
 public interface UserClient {
 
     @GetMapping("/{id}/check")
-    void checkUserExists(@PathVariable("id") UUID id);
+    void checkUserExists(@RequestHeader("Authorization") String authorization, @PathVariable("id") UUID id);
 }
\ No newline at end of file
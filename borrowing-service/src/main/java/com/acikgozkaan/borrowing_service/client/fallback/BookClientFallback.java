@@ -1,10 +1,18 @@
 package com.acikgozkaan.borrowing_service.client.fallback;
 
 import com.acikgozkaan.borrowing_service.client.BookClient;
+import com.acikgozkaan.borrowing_service.dto.external.BookBatchRequest;
 import com.acikgozkaan.borrowing_service.dto.external.BookResponse;
+import com.acikgozkaan.borrowing_service.dto.external.ReservationReleaseRequest;
+import com.acikgozkaan.borrowing_service.dto.external.StockCommandBatchRequest;
+import com.acikgozkaan.borrowing_service.dto.external.StockCommandResult;
+import com.acikgozkaan.borrowing_service.dto.external.StockReservationRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -13,16 +21,52 @@ public class BookClientFallback implements BookClient {
     @Override
     public BookResponse getBookById(UUID id) {
         log.warn("Fallback: book-service not available.");
-        return null;
+        throw unavailable();
+    }
+
+    @Override
+    public Map<UUID, BookResponse> getBooksByIds(BookBatchRequest request) {
+        log.warn("Fallback: book-service not available.");
+        throw unavailable();
     }
 
     @Override
     public void decreaseStock(UUID id) {
         log.warn("Fallback: book-service not available.");
+        throw unavailable();
+    }
+
+    @Override
+    public BookResponse reserveBook(String authorization, UUID id, UUID reservationKey) {
+        log.warn("Fallback: book-service not available.");
+        throw unavailable();
     }
 
     @Override
     public void increaseStock(UUID id) {
         log.warn("Fallback: book-service not available.");
+        throw unavailable();
+    }
+
+    @Override
+    public void reserveStock(StockReservationRequest request) {
+        log.warn("Fallback: book-service not available.");
+        throw unavailable();
+    }
+
+    @Override
+    public StockCommandResult applyStockCommands(String authorization, StockCommandBatchRequest request) {
+        log.warn("Fallback: book-service not available.");
+        throw unavailable();
+    }
+
+    @Override
+    public StockCommandResult releaseReservations(String authorization, ReservationReleaseRequest request) {
+        log.warn("Fallback: book-service not available.");
+        throw unavailable();
+    }
+
+    private static ResponseStatusException unavailable() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Book service is not available");
     }
 }
@@ -2,7 +2,9 @@ package com.acikgozkaan.borrowing_service.client.fallback;
 
 import com.acikgozkaan.borrowing_service.client.UserClient;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.UUID;
 
@@ -10,7 +12,8 @@ import java.util.UUID;
 @Component
 public class UserClientFallback implements UserClient {
     @Override
-    public void checkUserExists(UUID id) {
+    public void checkUserExists(String authorization, UUID id) {
         log.warn("Fallback: user-service not available.");
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "User service is not available");
     }
 }
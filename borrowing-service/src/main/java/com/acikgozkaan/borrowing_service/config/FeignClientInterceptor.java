@@ -13,6 +13,11 @@ public class FeignClientInterceptor {
     @Bean
     public RequestInterceptor requestInterceptor() {
         return requestTemplate -> {
+            // Calls that sign their own service token must not also carry the caller's.
+            if (requestTemplate.headers().containsKey("Authorization")) {
+                return;
+            }
+
             ServletRequestAttributes attributes =
                     (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
 
@@ -21,9 +26,6 @@ public class FeignClientInterceptor {
                 String authHeader = request.getHeader("Authorization");
                 if (authHeader != null && !authHeader.isBlank()) {
                     requestTemplate.header("Authorization", authHeader);
-                    System.out.println("Feign Authorization Header: " + authHeader);
-                } else {
-                    System.out.println("Feign Authorization Header MISSING");
                 }
             }
         };
@@ -17,12 +17,16 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class BorrowingController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final BorrowingService borrowingService;
 
     @PostMapping
     @PreAuthorize("hasRole('PATRON')")
-    public ResponseEntity<BorrowingResponse> borrowBook(@Valid @RequestBody BorrowingRequest request) {
-        return ResponseEntity.ok(borrowingService.borrowBook(request));
+    public ResponseEntity<BorrowingResponse> borrowBook(
+            @Valid @RequestBody BorrowingRequest request,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(borrowingService.borrowBook(request, idempotencyKey));
     }
 
     @PutMapping("/{id}/return")
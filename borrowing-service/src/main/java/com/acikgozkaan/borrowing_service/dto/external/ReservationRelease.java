@@ -0,0 +1,8 @@
+package com.acikgozkaan.borrowing_service.dto.external;
+
+import java.util.UUID;
+
+public record ReservationRelease(
+        UUID reservationKey,
+        UUID bookId
+) {}
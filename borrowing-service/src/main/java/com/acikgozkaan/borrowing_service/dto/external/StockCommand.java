@@ -0,0 +1,9 @@
+package com.acikgozkaan.borrowing_service.dto.external;
+
+import java.util.UUID;
+
+public record StockCommand(
+        UUID id,
+        UUID bookId,
+        int quantity
+) {}
@@ -0,0 +1,7 @@
+package com.acikgozkaan.borrowing_service.dto.external;
+
+import java.util.List;
+
+public record StockCommandBatchRequest(
+        List<StockCommand> commands
+) {}
@@ -0,0 +1,6 @@
+package com.acikgozkaan.borrowing_service.dto.external;
+
+public record StockCommandResult(
+        int applied,
+        int duplicates
+) {}
@@ -2,12 +2,16 @@ package com.acikgozkaan.borrowing_service.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
-@Table(name = "borrowings")
+@Table(name = "borrowings", indexes = {
+        @Index(name = "idx_borrowings_status_reserved_at", columnList = "status, reservedAt")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -32,4 +36,20 @@ public class Borrowing {
     private LocalDate dueDate;
 
     private LocalDate returnDate;
+
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    @ColumnDefault("'CONFIRMED'")
+    @Column(nullable = false, length = 16)
+    private BorrowingStatus status = BorrowingStatus.CONFIRMED;
+
+    /** Idempotency key of the stock reservation in book-service. */
+    @Column(unique = true)
+    private UUID reservationKey;
+
+    private Instant reservedAt;
+
+    /** Client-supplied Idempotency-Key of the borrow request; cleared when the saga is compensated. */
+    @Column(unique = true)
+    private String idempotencyKey;
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.acikgozkaan.borrowing_service.entity;
+
+/**
+ * States of the borrow saga: a borrowing is stored as RESERVED before any copy is taken, becomes
+ * CONFIRMED once book-service holds the copy, and ends COMPENSATED when the copy was released.
+ * COMPENSATING is claimed before the release, so a borrowing whose copy may already be back in
+ * stock can no longer be confirmed.
+ */
+public enum BorrowingStatus {
+    RESERVED,
+    CONFIRMED,
+    COMPENSATING,
+    COMPENSATED
+}
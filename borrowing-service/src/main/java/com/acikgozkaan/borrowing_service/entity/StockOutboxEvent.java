@@ -0,0 +1,45 @@
+package com.acikgozkaan.borrowing_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A stock change for book-service, written in the same transaction as the borrowing change that
+ * caused it and deleted once delivered. The id doubles as the idempotency key book-service
+ * dedupes on, so redelivering a row after a lost response is harmless.
+ */
+@Entity
+@Table(name = "stock_outbox", indexes = {
+        @Index(name = "idx_stock_outbox_next_attempt", columnList = "nextAttemptAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID bookId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+}
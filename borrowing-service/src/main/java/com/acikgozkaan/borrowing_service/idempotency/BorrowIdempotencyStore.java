@@ -0,0 +1,141 @@
+package com.acikgozkaan.borrowing_service.idempotency;
+
+import com.acikgozkaan.borrowing_service.dto.request.BorrowingRequest;
+import com.acikgozkaan.borrowing_service.dto.response.BorrowingResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * In-memory front of the borrow Idempotency-Key handling. The first request for a key runs the
+ * borrow flow; duplicates arriving while it runs wait on its result, and later replays get the
+ * cached response until the TTL runs out. Failures are not cached, so a retry after an error runs
+ * the flow again. The map is bounded and evicts in insertion order; anything evicted, expired or
+ * handled by another instance falls through to the unique key stored on the borrowing itself.
+ */
+@Component
+public class BorrowIdempotencyStore {
+
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Counter replays;
+    private final Map<String, Entry> entries;
+
+    public BorrowIdempotencyStore(
+            MeterRegistry meterRegistry,
+            @Value("${borrowing.idempotency.ttl:24h}") Duration ttl,
+            @Value("${borrowing.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${borrowing.idempotency.wait-timeout:30s}") Duration waitTimeout) {
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.replays = Counter.builder("borrowing.idempotency.replays").register(meterRegistry);
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        Gauge.builder("borrowing.idempotency.entries", this, BorrowIdempotencyStore::size).register(meterRegistry);
+    }
+
+    public BorrowingResponse execute(String key, BorrowingRequest request, Supplier<BorrowingResponse> action) {
+        Entry mine = new Entry(request, new CompletableFuture<>());
+        Entry entry = claim(key, mine);
+        if (entry != mine) {
+            replays.increment();
+            return await(entry, request);
+        }
+
+        try {
+            BorrowingResponse response = action.get();
+            mine.expiresAt = Instant.now().plus(ttl);
+            mine.result.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(key, mine);
+            }
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Entry claim(String key, Entry candidate) {
+        Instant now = Instant.now();
+        synchronized (entries) {
+            // Entries are completed roughly in insertion order, so expired ones collect at the head.
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (eldest.hasNext() && eldest.next().isExpired(now)) {
+                eldest.remove();
+            }
+
+            Entry existing = entries.get(key);
+            if (existing != null && !existing.isExpired(now)) {
+                return existing;
+            }
+            entries.remove(key);
+            entries.put(key, candidate);
+            return candidate;
+        }
+    }
+
+    private BorrowingResponse await(Entry entry, BorrowingRequest request) {
+        if (!entry.request.equals(request)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different borrowing");
+        }
+
+        try {
+            return entry.result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A borrowing with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Interrupted while waiting for the original request");
+        }
+    }
+
+    private static final class Entry {
+
+        private final BorrowingRequest request;
+        private final CompletableFuture<BorrowingResponse> result;
+        private volatile Instant expiresAt;
+
+        private Entry(BorrowingRequest request, CompletableFuture<BorrowingResponse> result) {
+            this.request = request;
+            this.result = result;
+        }
+
+        private boolean isExpired(Instant now) {
+            return expiresAt != null && !expiresAt.isAfter(now);
+        }
+    }
+}
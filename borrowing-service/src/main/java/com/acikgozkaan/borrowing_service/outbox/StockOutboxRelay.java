@@ -0,0 +1,166 @@
+package com.acikgozkaan.borrowing_service.outbox;
+
+import com.acikgozkaan.borrowing_service.client.BookClient;
+import com.acikgozkaan.borrowing_service.dto.external.StockCommand;
+import com.acikgozkaan.borrowing_service.dto.external.StockCommandBatchRequest;
+import com.acikgozkaan.borrowing_service.entity.StockOutboxEvent;
+import com.acikgozkaan.borrowing_service.repository.StockOutboxRepository;
+import com.acikgozkaan.borrowing_service.security.JwtService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers the stock outbox to book-service in batches. A failed batch stays in the table and is
+ * retried with jittered exponential backoff; delivered rows are deleted. Because book-service
+ * dedupes on the row id, a batch that was applied but whose response got lost is simply sent
+ * again, and several replicas relaying the same table cannot double-count a return.
+ */
+@Slf4j
+@Component
+public class StockOutboxRelay {
+
+    private static final Duration TOKEN_TTL = Duration.ofMinutes(1);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final StockOutboxRepository outboxRepository;
+    private final BookClient bookClient;
+    private final JwtService jwtService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Counter relayed;
+    private final Counter failures;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    public StockOutboxRelay(
+            StockOutboxRepository outboxRepository,
+            BookClient bookClient,
+            JwtService jwtService,
+            MeterRegistry meterRegistry,
+            @Value("${borrowing.outbox.relay-enabled:true}") boolean enabled,
+            @Value("${borrowing.outbox.batch-size:100}") int batchSize,
+            @Value("${borrowing.outbox.poll-interval:500ms}") Duration pollInterval,
+            @Value("${borrowing.outbox.initial-backoff:1s}") Duration initialBackoff,
+            @Value("${borrowing.outbox.max-backoff:5m}") Duration maxBackoff) {
+        this.outboxRepository = outboxRepository;
+        this.bookClient = bookClient;
+        this.jwtService = jwtService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.relayed = Counter.builder("borrowing.outbox.relayed").register(meterRegistry);
+        this.failures = Counter.builder("borrowing.outbox.failures").register(meterRegistry);
+        TimeGauge.builder("borrowing.outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest undelivered stock command")
+                .register(meterRegistry);
+        Gauge.builder("borrowing.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Stock outbox relay disabled; returned copies stay queued in the outbox");
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("stock-outbox-relay").factory());
+        scheduler.scheduleWithFixedDelay(this::relay,
+                pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    public void relay() {
+        try {
+            int sent;
+            do {
+                sent = relayBatch();
+            } while (sent == batchSize);
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the scheduled task for good.
+            log.error("Stock outbox relay run failed", e);
+        } finally {
+            updateGauges();
+        }
+    }
+
+    private int relayBatch() {
+        Instant now = Instant.now();
+        List<StockOutboxEvent> batch = outboxRepository.findDue(now, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<StockCommand> commands = batch.stream()
+                .map(event -> new StockCommand(event.getId(), event.getBookId(), event.getQuantity()))
+                .toList();
+        try {
+            bookClient.applyStockCommands("Bearer " + jwtService.generateServiceToken(TOKEN_TTL),
+                    new StockCommandBatchRequest(commands));
+        } catch (RuntimeException e) {
+            failures.increment();
+            batch.forEach(event -> scheduleRetry(event, now, e));
+            outboxRepository.saveAll(batch);
+            log.warn("Failed to relay {} stock commands, retrying with backoff: {}", batch.size(), e.getMessage());
+            return 0;
+        }
+
+        outboxRepository.deleteAllInBatch(batch);
+        relayed.increment(batch.size());
+        return batch.size();
+    }
+
+    private void scheduleRetry(StockOutboxEvent event, Instant now, RuntimeException cause) {
+        int attempts = event.getAttempts() + 1;
+        long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempts - 1, 20));
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+
+        String message = String.valueOf(cause.getMessage());
+        event.setAttempts(attempts);
+        event.setNextAttemptAt(now.plusMillis(delay));
+        event.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+    }
+
+    private void updateGauges() {
+        try {
+            Instant now = Instant.now();
+            lagMillis.set(outboxRepository.findOldestCreatedAt()
+                    .map(oldest -> Math.max(0, Duration.between(oldest, now).toMillis()))
+                    .orElse(0L));
+            pending.set(outboxRepository.count());
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh stock outbox gauges: {}", e.getMessage());
+        }
+    }
+}
@@ -1,14 +1,62 @@
 package com.acikgozkaan.borrowing_service.repository;
 
+import com.acikgozkaan.borrowing_service.dto.response.BorrowingResponse;
 import com.acikgozkaan.borrowing_service.entity.Borrowing;
+import com.acikgozkaan.borrowing_service.entity.BorrowingStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface BorrowingRepository extends JpaRepository<Borrowing, UUID> {
 
-    List<Borrowing> findByUserId(UUID userId);
-    List<Borrowing> findByDueDateBeforeAndReturnDateIsNull(LocalDate date);
+    String SELECT_RESPONSE = "SELECT new com.acikgozkaan.borrowing_service.dto.response.BorrowingResponse(" +
+            "b.id, b.userId, b.bookId, b.borrowDate, b.dueDate, b.returnDate) FROM Borrowing b " +
+            "WHERE b.status = com.acikgozkaan.borrowing_service.entity.BorrowingStatus.CONFIRMED";
+
+    @Query(SELECT_RESPONSE)
+    List<BorrowingResponse> findAllResponses();
+
+    @Query(SELECT_RESPONSE + " AND b.userId = :userId")
+    List<BorrowingResponse> findResponsesByUserId(@Param("userId") UUID userId);
+
+    List<Borrowing> findByDueDateBeforeAndReturnDateIsNullAndStatus(LocalDate date, BorrowingStatus status);
+
+    Optional<Borrowing> findByIdempotencyKey(String idempotencyKey);
+
+    @Query("SELECT b FROM Borrowing b WHERE b.status IN (com.acikgozkaan.borrowing_service.entity.BorrowingStatus.RESERVED, " +
+            "com.acikgozkaan.borrowing_service.entity.BorrowingStatus.COMPENSATING) " +
+            "AND b.reservedAt < :cutoff ORDER BY b.reservedAt")
+    List<Borrowing> findStuckReservations(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Borrowing b SET b.status = com.acikgozkaan.borrowing_service.entity.BorrowingStatus.CONFIRMED " +
+            "WHERE b.id = :id AND b.status = com.acikgozkaan.borrowing_service.entity.BorrowingStatus.RESERVED")
+    int confirm(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Borrowing b SET b.status = com.acikgozkaan.borrowing_service.entity.BorrowingStatus.COMPENSATING " +
+            "WHERE b.id IN :ids AND b.status = com.acikgozkaan.borrowing_service.entity.BorrowingStatus.RESERVED")
+    int claimForCompensation(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT b.id FROM Borrowing b WHERE b.id IN :ids " +
+            "AND b.status = com.acikgozkaan.borrowing_service.entity.BorrowingStatus.COMPENSATING")
+    List<UUID> findCompensatingIds(@Param("ids") Collection<UUID> ids);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Borrowing b SET b.status = com.acikgozkaan.borrowing_service.entity.BorrowingStatus.COMPENSATED, " +
+            "b.idempotencyKey = NULL WHERE b.id IN :ids AND b.status = com.acikgozkaan.borrowing_service.entity.BorrowingStatus.COMPENSATING")
+    int markCompensated(@Param("ids") Collection<UUID> ids);
 }
\ No newline at end of file
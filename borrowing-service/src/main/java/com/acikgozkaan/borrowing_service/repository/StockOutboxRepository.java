@@ -0,0 +1,21 @@
+package com.acikgozkaan.borrowing_service.repository;
+
+import com.acikgozkaan.borrowing_service.entity.StockOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface StockOutboxRepository extends JpaRepository<StockOutboxEvent, UUID> {
+
+    @Query("SELECT e FROM StockOutboxEvent e WHERE e.nextAttemptAt <= :now ORDER BY e.createdAt")
+    List<StockOutboxEvent> findDue(@Param("now") Instant now, Pageable pageable);
+
+    @Query("SELECT MIN(e.createdAt) FROM StockOutboxEvent e")
+    Optional<Instant> findOldestCreatedAt();
+}
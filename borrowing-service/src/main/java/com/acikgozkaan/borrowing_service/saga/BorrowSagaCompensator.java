@@ -0,0 +1,150 @@
+package com.acikgozkaan.borrowing_service.saga;
+
+import com.acikgozkaan.borrowing_service.client.BookClient;
+import com.acikgozkaan.borrowing_service.dto.external.ReservationRelease;
+import com.acikgozkaan.borrowing_service.dto.external.ReservationReleaseRequest;
+import com.acikgozkaan.borrowing_service.entity.Borrowing;
+import com.acikgozkaan.borrowing_service.repository.BorrowingRepository;
+import com.acikgozkaan.borrowing_service.security.JwtService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Undoes borrow sagas that never reached CONFIRMED. Releases go to book-service by reservation
+ * key, which is idempotent and also safe when the reserve never arrived: book-service then keeps a
+ * tombstone and refuses the late reserve. A periodic sweep picks up reservations left behind by a
+ * crash or a failed inline compensation and releases them in bulk.
+ */
+@Slf4j
+@Component
+public class BorrowSagaCompensator {
+
+    private static final Duration TOKEN_TTL = Duration.ofMinutes(1);
+
+    private final BorrowingRepository borrowingRepository;
+    private final BookClient bookClient;
+    private final JwtService jwtService;
+    private final boolean sweeperEnabled;
+    private final Duration stuckAfter;
+    private final Duration sweepInterval;
+    private final int batchSize;
+    private final Counter compensated;
+    private final Counter failures;
+
+    private ScheduledExecutorService scheduler;
+
+    public BorrowSagaCompensator(
+            BorrowingRepository borrowingRepository,
+            BookClient bookClient,
+            JwtService jwtService,
+            MeterRegistry meterRegistry,
+            @Value("${borrowing.saga.sweeper-enabled:true}") boolean sweeperEnabled,
+            @Value("${borrowing.saga.stuck-after:1m}") Duration stuckAfter,
+            @Value("${borrowing.saga.sweep-interval:30s}") Duration sweepInterval,
+            @Value("${borrowing.saga.batch-size:100}") int batchSize) {
+        this.borrowingRepository = borrowingRepository;
+        this.bookClient = bookClient;
+        this.jwtService = jwtService;
+        this.sweeperEnabled = sweeperEnabled;
+        this.stuckAfter = stuckAfter;
+        this.sweepInterval = sweepInterval;
+        this.batchSize = batchSize;
+        this.compensated = Counter.builder("borrowing.saga.compensated").register(meterRegistry);
+        this.failures = Counter.builder("borrowing.saga.compensation.failures").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!sweeperEnabled) {
+            log.info("Borrow saga sweeper disabled; stuck reservations are only released inline");
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("borrow-saga-sweeper").factory());
+        scheduler.scheduleWithFixedDelay(this::sweep,
+                sweepInterval.toMillis(), sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Claims the given borrowings as COMPENSATING, releases the reservations of the claimed ones
+     * and marks them COMPENSATED. A borrowing confirmed in the meantime is not claimed and keeps
+     * its copy. Returns false when book-service could not be reached; the claimed borrowings then
+     * stay COMPENSATING for the sweeper.
+     */
+    public boolean compensate(List<Borrowing> borrowings) {
+        if (borrowings.isEmpty()) {
+            return true;
+        }
+
+        // claimed first, so confirm can no longer win once the copy may be back in stock; rows
+        // already COMPENSATING from an earlier failed release are picked up again
+        List<UUID> ids = borrowings.stream().map(Borrowing::getId).toList();
+        borrowingRepository.claimForCompensation(ids);
+        Set<UUID> claimed = new HashSet<>(borrowingRepository.findCompensatingIds(ids));
+        List<Borrowing> releasable = borrowings.stream()
+                .filter(borrowing -> claimed.contains(borrowing.getId()))
+                .toList();
+        if (releasable.isEmpty()) {
+            return true;
+        }
+
+        List<ReservationRelease> releases = releasable.stream()
+                .map(borrowing -> new ReservationRelease(borrowing.getReservationKey(), borrowing.getBookId()))
+                .toList();
+        try {
+            bookClient.releaseReservations("Bearer " + jwtService.generateServiceToken(TOKEN_TTL),
+                    new ReservationReleaseRequest(releases));
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Failed to release {} reservations, leaving them to the sweeper: {}",
+                    releasable.size(), e.getMessage());
+            return false;
+        }
+
+        compensated.increment(borrowingRepository.markCompensated(
+                releasable.stream().map(Borrowing::getId).toList()));
+        return true;
+    }
+
+    public void sweep() {
+        try {
+            List<Borrowing> stuck;
+            do {
+                stuck = borrowingRepository.findStuckReservations(
+                        Instant.now().minus(stuckAfter), PageRequest.of(0, batchSize));
+                if (stuck.isEmpty()) {
+                    return;
+                }
+                log.info("Compensating {} borrow reservations stuck for over {}", stuck.size(), stuckAfter);
+            } while (compensate(stuck) && stuck.size() == batchSize);
+        } catch (RuntimeException e) {
+            // An escaping exception would cancel the scheduled task for good.
+            log.error("Borrow saga sweep failed", e);
+        }
+    }
+}
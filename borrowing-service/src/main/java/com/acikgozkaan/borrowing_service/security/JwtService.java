@@ -8,11 +8,16 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
 
 @Slf4j
 @Service
 public class JwtService {
 
+    public static final String SERVICE_SUBJECT = "borrowing-service";
+    public static final String SERVICE_ROLE = "SERVICE";
+
     private final SecretKey secretKey;
 
     public JwtService(
@@ -20,6 +25,18 @@ public class JwtService {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
     }
 
+    /** Short-lived token for calls made outside a user request, such as the outbox relay. */
+    public String generateServiceToken(Duration ttl) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .subject(SERVICE_SUBJECT)
+                .claim("role", SERVICE_ROLE)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + ttl.toMillis()))
+                .signWith(secretKey, Jwts.SIG.HS256)
+                .compact();
+    }
+
     public boolean isTokenValid(String token) {
         try {
             getClaims(token);
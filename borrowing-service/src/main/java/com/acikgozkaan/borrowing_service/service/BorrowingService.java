@@ -8,7 +8,7 @@ import java.util.UUID;
 
 public interface BorrowingService {
 
-    BorrowingResponse borrowBook(BorrowingRequest request);
+    BorrowingResponse borrowBook(BorrowingRequest request, String idempotencyKey);
     BorrowingResponse returnBook(UUID borrowingId);
     List<BorrowingResponse> getAll();
     BorrowingResponse getById(UUID id);
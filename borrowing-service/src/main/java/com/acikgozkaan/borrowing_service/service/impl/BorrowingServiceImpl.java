@@ -1,21 +1,33 @@
 package com.acikgozkaan.borrowing_service.service.impl;
 
 import com.acikgozkaan.borrowing_service.client.BookClient;
+import com.acikgozkaan.borrowing_service.client.ParallelClientCalls;
 import com.acikgozkaan.borrowing_service.client.UserClient;
 import com.acikgozkaan.borrowing_service.dto.external.BookResponse;
 import com.acikgozkaan.borrowing_service.dto.request.BorrowingRequest;
 import com.acikgozkaan.borrowing_service.dto.response.BorrowingResponse;
 import com.acikgozkaan.borrowing_service.entity.Borrowing;
+import com.acikgozkaan.borrowing_service.entity.BorrowingStatus;
+import com.acikgozkaan.borrowing_service.entity.StockOutboxEvent;
 import com.acikgozkaan.borrowing_service.exception.BorrowingNotFoundException;
 import com.acikgozkaan.borrowing_service.exception.BusinessRuleException;
 import com.acikgozkaan.borrowing_service.exception.OutOfStockException;
+import com.acikgozkaan.borrowing_service.idempotency.BorrowIdempotencyStore;
 import com.acikgozkaan.borrowing_service.mapper.BorrowingMapper;
 import com.acikgozkaan.borrowing_service.repository.BorrowingRepository;
+import com.acikgozkaan.borrowing_service.repository.StockOutboxRepository;
+import com.acikgozkaan.borrowing_service.saga.BorrowSagaCompensator;
 import com.acikgozkaan.borrowing_service.service.BorrowingService;
 import feign.FeignException;
+import feign.RetryableException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -26,47 +38,128 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class BorrowingServiceImpl implements BorrowingService {
 
+    private static final int MAX_RESERVE_ATTEMPTS = 3;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final BorrowingRepository borrowingRepository;
+    private final StockOutboxRepository stockOutboxRepository;
     private final BorrowingMapper borrowingMapper;
     private final UserClient userClient;
     private final BookClient bookClient;
-
+    private final ParallelClientCalls parallelClientCalls;
+    private final BorrowSagaCompensator borrowSagaCompensator;
+    private final BorrowIdempotencyStore borrowIdempotencyStore;
+
+    /**
+     * With an Idempotency-Key, replays return the borrowing the key first produced instead of
+     * running the saga again: concurrent duplicates on this instance wait on the in-flight call,
+     * and anything the in-memory store no longer knows is looked up by the key stored on the row.
+     */
     @Override
-    public BorrowingResponse borrowBook(BorrowingRequest request) {
-        userClient.checkUserExists(request.userId());
-        BookResponse book = bookClient.getBookById(request.bookId());
+    public BorrowingResponse borrowBook(BorrowingRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return runBorrowSaga(request, null);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new BusinessRuleException("Idempotency-Key must be between 1 and " +
+                    MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+
+        return borrowIdempotencyStore.execute(idempotencyKey, request,
+                () -> borrowingRepository.findByIdempotencyKey(idempotencyKey)
+                        .map(existing -> replay(existing, request))
+                        .orElseGet(() -> runBorrowSaga(request, idempotencyKey)));
+    }
+
+    /**
+     * Runs the borrow saga: the borrowing is stored RESERVED under a fresh reservation key before
+     * any copy is taken, the user check and the keyed reserve run side by side, and the borrowing
+     * is CONFIRMED only if both succeeded. Any failure releases the key, and a crash anywhere in
+     * between leaves a RESERVED row for the sweeper to compensate.
+     */
+    private BorrowingResponse runBorrowSaga(BorrowingRequest request, String idempotencyKey) {
+        Borrowing borrowing = borrowingMapper.toEntity(request);
+        borrowing.setStatus(BorrowingStatus.RESERVED);
+        borrowing.setReservationKey(UUID.randomUUID());
+        borrowing.setReservedAt(Instant.now());
+        borrowing.setIdempotencyKey(idempotencyKey);
 
+        Borrowing reserved;
         try {
-            bookClient.decreaseStock(request.bookId());
-        } catch (FeignException.Conflict ex) {
-            throw new OutOfStockException(book.id());
+            reserved = borrowingRepository.save(borrowing);
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance claimed the same key between our lookup and this insert.
+            if (idempotencyKey == null) {
+                throw ex;
+            }
+            return borrowingRepository.findByIdempotencyKey(idempotencyKey)
+                    .map(existing -> replay(existing, request))
+                    .orElseThrow(() -> ex);
         }
 
-        Borrowing borrowing = borrowingMapper.toEntity(request);
-        Borrowing saved = borrowingRepository.save(borrowing);
-        return borrowingMapper.toResponse(saved);
+        ParallelClientCalls.Both<ParallelClientCalls.Outcome<UUID>, ParallelClientCalls.Outcome<BookResponse>> outcomes;
+        try {
+            outcomes = parallelClientCalls.settle(
+                    authorization -> {
+                        userClient.checkUserExists(authorization, request.userId());
+                        return request.userId();
+                    },
+                    authorization -> reserveWithRetry(authorization, request.bookId(), reserved.getReservationKey())
+            );
+        } catch (RuntimeException ex) {
+            borrowSagaCompensator.compensate(List.of(reserved));
+            throw ex;
+        }
+
+        ParallelClientCalls.Outcome<UUID> user = outcomes.first();
+        ParallelClientCalls.Outcome<BookResponse> reservation = outcomes.second();
+        if (!user.succeeded() || !reservation.succeeded()) {
+            borrowSagaCompensator.compensate(List.of(reserved));
+            if (!user.succeeded()) {
+                throw user.failure();
+            }
+            if (reservation.failure() instanceof FeignException.Conflict) {
+                throw new OutOfStockException(request.bookId());
+            }
+            throw reservation.failure();
+        }
+
+        if (borrowingRepository.confirm(reserved.getId()) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Reservation expired before the borrowing could be confirmed");
+        }
+        reserved.setStatus(BorrowingStatus.CONFIRMED);
+        return borrowingMapper.toResponse(reserved);
     }
 
     @Override
+    @Transactional
     public BorrowingResponse returnBook(UUID borrowingId) {
         Borrowing borrowing = getBorrowingOrThrow(borrowingId);
 
+        if (borrowing.getStatus() != BorrowingStatus.CONFIRMED) {
+            throw new BusinessRuleException("Borrowing is not active");
+        }
         if (borrowing.getReturnDate() != null) {
             throw new BusinessRuleException("Book is already returned");
         }
 
         borrowing.setReturnDate(LocalDate.now());
         Borrowing updated = borrowingRepository.save(borrowing);
-        bookClient.increaseStock(borrowing.getBookId());
+        Instant now = Instant.now();
+        stockOutboxRepository.save(StockOutboxEvent.builder()
+                .bookId(borrowing.getBookId())
+                .quantity(1)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
         return borrowingMapper.toResponse(updated);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BorrowingResponse> getAll() {
-        return borrowingRepository.findAll()
-                .stream()
-                .map(borrowingMapper::toResponse)
-                .toList();
+        return borrowingRepository.findAllResponses();
     }
 
     @Override
@@ -75,16 +168,15 @@ public class BorrowingServiceImpl implements BorrowingService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BorrowingResponse> getByUserId(UUID userId) {
-        return borrowingRepository.findByUserId(userId)
-                .stream()
-                .map(borrowingMapper::toResponse)
-                .toList();
+        return borrowingRepository.findResponsesByUserId(userId);
     }
 
     @Override
     public List<BorrowingResponse> getOverdueBorrowings() {
-        return borrowingRepository.findByDueDateBeforeAndReturnDateIsNull(LocalDate.now())
+        return borrowingRepository
+                .findByDueDateBeforeAndReturnDateIsNullAndStatus(LocalDate.now(), BorrowingStatus.CONFIRMED)
                 .stream()
                 .map(borrowingMapper::toResponse)
                 .toList();
@@ -93,7 +185,7 @@ public class BorrowingServiceImpl implements BorrowingService {
     @Override
     public String generateOverdueReport() {
         List<Borrowing> overdueList = borrowingRepository
-                .findByDueDateBeforeAndReturnDateIsNull(LocalDate.now());
+                .findByDueDateBeforeAndReturnDateIsNullAndStatus(LocalDate.now(), BorrowingStatus.CONFIRMED);
 
         long total = overdueList.size();
         Map<UUID, Long> userBorrowCounts = overdueList.stream()
@@ -117,6 +209,32 @@ public class BorrowingServiceImpl implements BorrowingService {
         return report.toString();
     }
 
+    private BorrowingResponse replay(Borrowing existing, BorrowingRequest request) {
+        if (!existing.getUserId().equals(request.userId()) || !existing.getBookId().equals(request.bookId())) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different borrowing");
+        }
+        if (existing.getStatus() != BorrowingStatus.CONFIRMED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A borrowing with this Idempotency-Key is still in progress");
+        }
+        return borrowingMapper.toResponse(existing);
+    }
+
+    // The reserve is keyed, so repeating it after a lost response cannot take a second copy.
+    // An interrupt means the caller gave up on this call, so it is never retried.
+    private BookResponse reserveWithRetry(String authorization, UUID bookId, UUID reservationKey) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return bookClient.reserveBook(authorization, bookId, reservationKey);
+            } catch (RetryableException | FeignException.FeignServerException ex) {
+                if (attempt >= MAX_RESERVE_ATTEMPTS || Thread.currentThread().isInterrupted()) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
     private Borrowing getBorrowingOrThrow(UUID id) {
         return borrowingRepository.findById(id)
                 .orElseThrow(() -> new BorrowingNotFoundException(id));
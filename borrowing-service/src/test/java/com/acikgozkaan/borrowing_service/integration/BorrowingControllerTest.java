@@ -3,10 +3,16 @@ package com.acikgozkaan.borrowing_service.integration;
 import com.acikgozkaan.borrowing_service.client.BookClient;
 import com.acikgozkaan.borrowing_service.client.UserClient;
 import com.acikgozkaan.borrowing_service.dto.external.BookResponse;
+import com.acikgozkaan.borrowing_service.dto.external.ReservationRelease;
+import com.acikgozkaan.borrowing_service.dto.external.ReservationReleaseRequest;
 import com.acikgozkaan.borrowing_service.dto.request.BorrowingRequest;
 import com.acikgozkaan.borrowing_service.entity.Borrowing;
+import com.acikgozkaan.borrowing_service.entity.BorrowingStatus;
+import com.acikgozkaan.borrowing_service.entity.StockOutboxEvent;
 import com.acikgozkaan.borrowing_service.repository.BorrowingRepository;
+import com.acikgozkaan.borrowing_service.repository.StockOutboxRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.FeignException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,10 +25,19 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -35,6 +50,7 @@ class BorrowingControllerTest {
     @Autowired private MockMvc mockMvc;
     @Autowired private ObjectMapper objectMapper;
     @Autowired private BorrowingRepository borrowingRepository;
+    @Autowired private StockOutboxRepository stockOutboxRepository;
 
     @MockitoBean
     private UserClient userClient;
@@ -49,6 +65,7 @@ class BorrowingControllerTest {
     @BeforeEach
     void setUp() {
         borrowingRepository.deleteAll();
+        stockOutboxRepository.deleteAll();
         userId = UUID.randomUUID();
         bookId = UUID.randomUUID();
     }
@@ -56,9 +73,8 @@ class BorrowingControllerTest {
     @Test
     @WithMockUser(roles = "PATRON")
     void shouldBorrowBook() throws Exception {
-        doNothing().when(userClient).checkUserExists(userId);
-        when(bookClient.getBookById(bookId)).thenReturn(new BookResponse(bookId, "Book", 1));
-        doNothing().when(bookClient).decreaseStock(bookId);
+        doNothing().when(userClient).checkUserExists(any(), eq(userId));
+        when(bookClient.reserveBook(any(), eq(bookId), any())).thenReturn(new BookResponse(bookId, "Book", 0));
 
         BorrowingRequest request = new BorrowingRequest(userId, bookId);
 
@@ -66,6 +82,84 @@ class BorrowingControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk());
+
+        Borrowing stored = borrowingRepository.findAll().get(0);
+        assertEquals(BorrowingStatus.CONFIRMED, stored.getStatus());
+        verify(bookClient).reserveBook(any(), eq(bookId), eq(stored.getReservationKey()));
+    }
+
+    @Test
+    @WithMockUser(roles = "PATRON")
+    void shouldReplayBorrowForRepeatedIdempotencyKey() throws Exception {
+        doNothing().when(userClient).checkUserExists(any(), eq(userId));
+        when(bookClient.reserveBook(any(), eq(bookId), any())).thenReturn(new BookResponse(bookId, "Book", 0));
+        String body = objectMapper.writeValueAsString(new BorrowingRequest(userId, bookId));
+
+        String first = mockMvc.perform(post("/api/v1/borrowings")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(post("/api/v1/borrowings")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().json(first));
+
+        assertEquals(1, borrowingRepository.count());
+        verify(bookClient, times(1)).reserveBook(any(), eq(bookId), any());
+        mockMvc.perform(post("/api/v1/borrowings")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BorrowingRequest(userId, UUID.randomUUID()))))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    @WithMockUser(roles = "PATRON")
+    void shouldRunBorrowAgainWhenKeyedAttemptWasCompensated() throws Exception {
+        doNothing().when(userClient).checkUserExists(any(), eq(userId));
+        when(bookClient.reserveBook(any(), eq(bookId), any()))
+                .thenThrow(mock(FeignException.Conflict.class))
+                .thenReturn(new BookResponse(bookId, "Book", 0));
+        String body = objectMapper.writeValueAsString(new BorrowingRequest(userId, bookId));
+
+        mockMvc.perform(post("/api/v1/borrowings")
+                        .header("Idempotency-Key", "retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/v1/borrowings")
+                        .header("Idempotency-Key", "retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        Borrowing confirmed = borrowingRepository.findByIdempotencyKey("retry-2").orElseThrow();
+        assertEquals(BorrowingStatus.CONFIRMED, confirmed.getStatus());
+        assertEquals(2, borrowingRepository.count());
+    }
+
+    @Test
+    @WithMockUser(roles = "PATRON")
+    void shouldCompensateBorrowWhenBookIsOutOfStock() throws Exception {
+        doNothing().when(userClient).checkUserExists(any(), eq(userId));
+        when(bookClient.reserveBook(any(), eq(bookId), any())).thenThrow(mock(FeignException.Conflict.class));
+
+        mockMvc.perform(post("/api/v1/borrowings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BorrowingRequest(userId, bookId))))
+                .andExpect(status().isConflict());
+
+        Borrowing stored = borrowingRepository.findAll().get(0);
+        assertEquals(BorrowingStatus.COMPENSATED, stored.getStatus());
+        verify(bookClient).releaseReservations(anyString(), eq(new ReservationReleaseRequest(
+                List.of(new ReservationRelease(stored.getReservationKey(), bookId)))));
+        mockMvc.perform(get("/api/v1/borrowings/user/" + userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
     }
 
     @Test
@@ -134,12 +228,15 @@ class BorrowingControllerTest {
                 .build();
         borrowing = borrowingRepository.save(borrowing);
 
-        doNothing().when(bookClient).increaseStock(bookId);
-
         mockMvc.perform(put("/api/v1/borrowings/" + borrowing.getId() + "/return"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(borrowing.getId().toString()))
                 .andExpect(jsonPath("$.returnDate").exists());
+
+        List<StockOutboxEvent> queued = stockOutboxRepository.findAll();
+        assertEquals(1, queued.size());
+        assertEquals(bookId, queued.get(0).getBookId());
+        verify(bookClient, never()).increaseStock(any());
     }
 
     @Test
@@ -0,0 +1,125 @@
+package com.acikgozkaan.borrowing_service.unit;
+
+import com.acikgozkaan.borrowing_service.dto.request.BorrowingRequest;
+import com.acikgozkaan.borrowing_service.dto.response.BorrowingResponse;
+import com.acikgozkaan.borrowing_service.idempotency.BorrowIdempotencyStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BorrowIdempotencyStoreTest {
+
+    private final BorrowingRequest request = new BorrowingRequest(UUID.randomUUID(), UUID.randomUUID());
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    void execute_replaysCompletedResult() {
+        BorrowIdempotencyStore store = store(Duration.ofHours(1), 10);
+
+        BorrowingResponse first = store.execute("key", request, this::borrow);
+        BorrowingResponse second = store.execute("key", request, this::borrow);
+
+        assertEquals(first, second);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_concurrentDuplicateWaitsForInFlightResult() throws Exception {
+        BorrowIdempotencyStore store = store(Duration.ofHours(1), 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<BorrowingResponse> original = CompletableFuture.supplyAsync(() ->
+                store.execute("key", request, () -> {
+                    started.countDown();
+                    await(release);
+                    return borrow();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<BorrowingResponse> duplicate = CompletableFuture.supplyAsync(() ->
+                store.execute("key", request, this::borrow));
+
+        Thread.sleep(100);
+        assertFalse(duplicate.isDone());
+        release.countDown();
+
+        assertEquals(original.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_failureIsNotCached() {
+        BorrowIdempotencyStore store = store(Duration.ofHours(1), 10);
+
+        assertThrows(IllegalStateException.class, () -> store.execute("key", request, () -> {
+            throw new IllegalStateException("book-service down");
+        }));
+        store.execute("key", request, this::borrow);
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_differentRequestForSameKeyIsRejected() {
+        BorrowIdempotencyStore store = store(Duration.ofHours(1), 10);
+        store.execute("key", request, this::borrow);
+
+        BorrowingRequest other = new BorrowingRequest(request.userId(), UUID.randomUUID());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> store.execute("key", other, this::borrow));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatusCode());
+    }
+
+    @Test
+    void execute_expiredEntryRunsAgain() {
+        BorrowIdempotencyStore store = store(Duration.ZERO, 10);
+
+        store.execute("key", request, this::borrow);
+        store.execute("key", request, this::borrow);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void execute_evictsEldestBeyondMaxEntries() {
+        BorrowIdempotencyStore store = store(Duration.ofHours(1), 2);
+
+        store.execute("a", request, this::borrow);
+        store.execute("b", request, this::borrow);
+        store.execute("c", request, this::borrow);
+        store.execute("a", request, this::borrow);
+
+        assertEquals(4, runs.get());
+        assertEquals(2, store.size());
+    }
+
+    private BorrowIdempotencyStore store(Duration ttl, int maxEntries) {
+        return new BorrowIdempotencyStore(new SimpleMeterRegistry(), ttl, maxEntries, Duration.ofSeconds(5));
+    }
+
+    private BorrowingResponse borrow() {
+        runs.incrementAndGet();
+        return new BorrowingResponse(UUID.randomUUID(), request.userId(), request.bookId(),
+                LocalDate.now(), LocalDate.now().plusDays(14), null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.acikgozkaan.borrowing_service.unit;
+
+import com.acikgozkaan.borrowing_service.client.BookClient;
+import com.acikgozkaan.borrowing_service.dto.external.ReservationRelease;
+import com.acikgozkaan.borrowing_service.dto.external.ReservationReleaseRequest;
+import com.acikgozkaan.borrowing_service.entity.Borrowing;
+import com.acikgozkaan.borrowing_service.entity.BorrowingStatus;
+import com.acikgozkaan.borrowing_service.repository.BorrowingRepository;
+import com.acikgozkaan.borrowing_service.saga.BorrowSagaCompensator;
+import com.acikgozkaan.borrowing_service.security.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BorrowSagaCompensatorTest {
+
+    private static final String SECRET = "testsecretkey12345678901234567890123456789012";
+
+    @Mock private BorrowingRepository borrowingRepository;
+    @Mock private BookClient bookClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BorrowSagaCompensator compensator;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        compensator = new BorrowSagaCompensator(borrowingRepository, bookClient, new JwtService(SECRET),
+                meterRegistry, false, Duration.ofMinutes(1), Duration.ofSeconds(30), 2);
+    }
+
+    @Test
+    void sweep_releasesStuckReservationsInBulkUntilNoneAreLeft() {
+        List<Borrowing> firstPage = List.of(reserved(), reserved());
+        List<Borrowing> secondPage = List.of(reserved());
+        when(borrowingRepository.findStuckReservations(any(Instant.class), any(Pageable.class)))
+                .thenReturn(firstPage, secondPage);
+        when(borrowingRepository.findCompensatingIds(anyCollection()))
+                .thenReturn(ids(firstPage), ids(secondPage));
+        when(borrowingRepository.markCompensated(anyCollection())).thenReturn(2, 1);
+
+        compensator.sweep();
+
+        ArgumentCaptor<ReservationReleaseRequest> releases = ArgumentCaptor.forClass(ReservationReleaseRequest.class);
+        verify(bookClient, times(2)).releaseReservations(startsWith("Bearer "), releases.capture());
+        assertEquals(new ReservationRelease(firstPage.get(0).getReservationKey(), firstPage.get(0).getBookId()),
+                releases.getAllValues().get(0).reservations().get(0));
+        assertEquals(1, releases.getAllValues().get(1).reservations().size());
+        InOrder inOrder = inOrder(borrowingRepository, bookClient);
+        inOrder.verify(borrowingRepository).claimForCompensation(ids(firstPage));
+        inOrder.verify(bookClient).releaseReservations(anyString(), any());
+        inOrder.verify(borrowingRepository).markCompensated(ids(firstPage));
+        assertEquals(3, meterRegistry.get("borrowing.saga.compensated").counter().count());
+    }
+
+    @Test
+    void compensate_leavesBorrowingsReservedWhenBookServiceIsDown() {
+        Borrowing borrowing = reserved();
+        when(borrowingRepository.findCompensatingIds(anyCollection())).thenReturn(List.of(borrowing.getId()));
+        when(bookClient.releaseReservations(anyString(), any())).thenThrow(new IllegalStateException("connection refused"));
+
+        assertFalse(compensator.compensate(List.of(borrowing)));
+
+        verify(borrowingRepository, never()).markCompensated(anyCollection());
+        assertEquals(1, meterRegistry.get("borrowing.saga.compensation.failures").counter().count());
+    }
+
+    @Test
+    void compensate_skipsBorrowingsConfirmedBeforeTheClaim() {
+        Borrowing confirmed = reserved();
+        Borrowing stuck = reserved();
+        when(borrowingRepository.findCompensatingIds(anyCollection())).thenReturn(List.of(stuck.getId()));
+        when(borrowingRepository.markCompensated(anyCollection())).thenReturn(1);
+
+        assertTrue(compensator.compensate(List.of(confirmed, stuck)));
+
+        verify(bookClient).releaseReservations(anyString(), eq(new ReservationReleaseRequest(
+                List.of(new ReservationRelease(stuck.getReservationKey(), stuck.getBookId())))));
+        verify(borrowingRepository).markCompensated(List.of(stuck.getId()));
+    }
+
+    @Test
+    void compensate_releasesNothingWhenEveryBorrowingWasConfirmed() {
+        when(borrowingRepository.findCompensatingIds(anyCollection())).thenReturn(List.of());
+
+        assertTrue(compensator.compensate(List.of(reserved())));
+
+        verifyNoInteractions(bookClient);
+        verify(borrowingRepository, never()).markCompensated(anyCollection());
+    }
+
+    private static List<UUID> ids(List<Borrowing> borrowings) {
+        return borrowings.stream().map(Borrowing::getId).toList();
+    }
+
+    private static Borrowing reserved() {
+        return Borrowing.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .bookId(UUID.randomUUID())
+                .status(BorrowingStatus.RESERVED)
+                .reservationKey(UUID.randomUUID())
+                .reservedAt(Instant.now().minusSeconds(120))
+                .build();
+    }
+}
@@ -1,22 +1,40 @@
 package com.acikgozkaan.borrowing_service.unit;
 
 import com.acikgozkaan.borrowing_service.client.BookClient;
+import com.acikgozkaan.borrowing_service.client.ParallelClientCalls;
 import com.acikgozkaan.borrowing_service.client.UserClient;
 import com.acikgozkaan.borrowing_service.dto.external.BookResponse;
 import com.acikgozkaan.borrowing_service.dto.request.BorrowingRequest;
 import com.acikgozkaan.borrowing_service.dto.response.BorrowingResponse;
 import com.acikgozkaan.borrowing_service.entity.Borrowing;
+import com.acikgozkaan.borrowing_service.entity.BorrowingStatus;
+import com.acikgozkaan.borrowing_service.entity.StockOutboxEvent;
+import com.acikgozkaan.borrowing_service.exception.BusinessRuleException;
 import com.acikgozkaan.borrowing_service.exception.OutOfStockException;
+import com.acikgozkaan.borrowing_service.idempotency.BorrowIdempotencyStore;
 import com.acikgozkaan.borrowing_service.mapper.BorrowingMapper;
 import com.acikgozkaan.borrowing_service.repository.BorrowingRepository;
+import com.acikgozkaan.borrowing_service.repository.StockOutboxRepository;
+import com.acikgozkaan.borrowing_service.saga.BorrowSagaCompensator;
 import com.acikgozkaan.borrowing_service.service.impl.BorrowingServiceImpl;
 import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -27,9 +45,14 @@ import static org.mockito.Mockito.*;
 class BorrowingServiceTest {
 
     @Mock private BorrowingRepository borrowingRepository;
+    @Mock private StockOutboxRepository stockOutboxRepository;
     @Mock private BorrowingMapper borrowingMapper;
     @Mock private UserClient userClient;
     @Mock private BookClient bookClient;
+    @Mock private BorrowSagaCompensator borrowSagaCompensator;
+    @Spy private ParallelClientCalls parallelClientCalls = new ParallelClientCalls(Duration.ofSeconds(5));
+    @Spy private BorrowIdempotencyStore borrowIdempotencyStore = new BorrowIdempotencyStore(
+            new SimpleMeterRegistry(), Duration.ofHours(1), 100, Duration.ofSeconds(5));
 
     @InjectMocks
     private BorrowingServiceImpl borrowingService;
@@ -39,55 +62,255 @@ class BorrowingServiceTest {
         UUID userId = UUID.randomUUID();
         UUID bookId = UUID.randomUUID();
         BorrowingRequest request = new BorrowingRequest(userId, bookId);
-
-        BookResponse bookResponse = new BookResponse(bookId, "Book Name", 1);
-        Borrowing borrowing = new Borrowing();
-        Borrowing saved = new Borrowing();
+        Borrowing borrowing = stubReservedBorrowing(request);
         BorrowingResponse response = new BorrowingResponse(
-                UUID.randomUUID(), userId, bookId,
+                borrowing.getId(), userId, bookId,
                 LocalDate.now(), LocalDate.now().plusDays(14), null
         );
 
-        when(bookClient.getBookById(bookId)).thenReturn(bookResponse);
-        when(borrowingMapper.toEntity(request)).thenReturn(borrowing);
-        when(borrowingRepository.save(borrowing)).thenReturn(saved);
-        when(borrowingMapper.toResponse(saved)).thenReturn(response);
+        when(bookClient.reserveBook(any(), eq(bookId), any())).thenReturn(new BookResponse(bookId, "Book Name", 0));
+        when(borrowingRepository.confirm(borrowing.getId())).thenReturn(1);
+        when(borrowingMapper.toResponse(borrowing)).thenReturn(response);
 
-        BorrowingResponse result = borrowingService.borrowBook(request);
+        BorrowingResponse result = borrowingService.borrowBook(request, null);
 
         assertEquals(response, result);
-        verify(userClient).checkUserExists(userId);
-        verify(bookClient).decreaseStock(bookId);
+        assertEquals(BorrowingStatus.CONFIRMED, borrowing.getStatus());
+        verify(userClient).checkUserExists(any(), eq(userId));
+        verify(bookClient).reserveBook(any(), eq(bookId), eq(borrowing.getReservationKey()));
+        verifyNoInteractions(borrowSagaCompensator);
     }
 
     @Test
     void borrowBook_outOfStock_throwsException() {
         UUID userId = UUID.randomUUID();
         UUID bookId = UUID.randomUUID();
+        BorrowingRequest request = new BorrowingRequest(userId, bookId);
+        Borrowing borrowing = stubReservedBorrowing(request);
 
+        FeignException.Conflict conflict = mock(FeignException.Conflict.class);
+        when(bookClient.reserveBook(any(), eq(bookId), any())).thenThrow(conflict);
+
+        assertThrows(OutOfStockException.class, () -> borrowingService.borrowBook(request, null));
+        verify(borrowSagaCompensator).compensate(List.of(borrowing));
+        verify(borrowingRepository, never()).confirm(any());
+    }
+
+    @Test
+    void borrowBook_userMissing_compensatesReservation() {
+        UUID userId = UUID.randomUUID();
+        UUID bookId = UUID.randomUUID();
         BorrowingRequest request = new BorrowingRequest(userId, bookId);
+        Borrowing borrowing = stubReservedBorrowing(request);
 
-        BookResponse bookResponse = new BookResponse(bookId, "Book", 0);
-        when(bookClient.getBookById(bookId)).thenReturn(bookResponse);
+        FeignException.NotFound notFound = mock(FeignException.NotFound.class);
+        doThrow(notFound).when(userClient).checkUserExists(any(), eq(userId));
+        when(bookClient.reserveBook(any(), eq(bookId), any())).thenReturn(new BookResponse(bookId, "Book", 0));
 
-        FeignException.Conflict conflict = mock(FeignException.Conflict.class);
-        doThrow(conflict).when(bookClient).decreaseStock(bookId);
+        assertThrows(FeignException.NotFound.class, () -> borrowingService.borrowBook(request, null));
+        verify(borrowSagaCompensator).compensate(List.of(borrowing));
+        verify(borrowingRepository, never()).confirm(any());
+    }
+
+    @Test
+    void borrowBook_retriesReserveWithSameKeyOnServerError() {
+        UUID userId = UUID.randomUUID();
+        UUID bookId = UUID.randomUUID();
+        BorrowingRequest request = new BorrowingRequest(userId, bookId);
+        Borrowing borrowing = stubReservedBorrowing(request);
+
+        FeignException.InternalServerError serverError = mock(FeignException.InternalServerError.class);
+        when(bookClient.reserveBook(any(), eq(bookId), any()))
+                .thenThrow(serverError)
+                .thenReturn(new BookResponse(bookId, "Book", 0));
+        when(borrowingRepository.confirm(borrowing.getId())).thenReturn(1);
+
+        borrowingService.borrowBook(request, null);
 
-        assertThrows(OutOfStockException.class, () -> borrowingService.borrowBook(request));
+        verify(bookClient, times(2)).reserveBook(any(), eq(bookId), eq(borrowing.getReservationKey()));
+        verifyNoInteractions(borrowSagaCompensator);
     }
 
     @Test
-    void getAll_returnsMappedList() {
+    void borrowBook_doesNotRetryReserveAfterInterrupt() {
+        UUID userId = UUID.randomUUID();
+        UUID bookId = UUID.randomUUID();
+        BorrowingRequest request = new BorrowingRequest(userId, bookId);
+        Borrowing borrowing = stubReservedBorrowing(request);
+
+        RetryableException interrupted = mock(RetryableException.class);
+        when(bookClient.reserveBook(any(), eq(bookId), any())).thenAnswer(invocation -> {
+            Thread.currentThread().interrupt();
+            throw interrupted;
+        });
+
+        assertThrows(RetryableException.class, () -> borrowingService.borrowBook(request, null));
+        verify(bookClient, times(1)).reserveBook(any(), eq(bookId), any());
+        verify(borrowSagaCompensator).compensate(List.of(borrowing));
+    }
+
+    @Test
+    void borrowBook_forwardsCallerAuthorizationToParallelCalls() {
+        UUID userId = UUID.randomUUID();
+        UUID bookId = UUID.randomUUID();
+        BorrowingRequest request = new BorrowingRequest(userId, bookId);
+        Borrowing borrowing = stubReservedBorrowing(request);
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.addHeader("Authorization", "Bearer caller-token");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(servletRequest));
+
+        when(bookClient.reserveBook(any(), eq(bookId), any())).thenReturn(new BookResponse(bookId, "Book", 0));
+        when(borrowingRepository.confirm(borrowing.getId())).thenReturn(1);
+
+        try {
+            borrowingService.borrowBook(request, null);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        verify(userClient).checkUserExists("Bearer caller-token", userId);
+        verify(bookClient).reserveBook("Bearer caller-token", bookId, borrowing.getReservationKey());
+    }
+
+    @Test
+    void borrowBook_reservationSweptBeforeConfirm_throwsConflict() {
+        UUID userId = UUID.randomUUID();
+        UUID bookId = UUID.randomUUID();
+        BorrowingRequest request = new BorrowingRequest(userId, bookId);
+        Borrowing borrowing = stubReservedBorrowing(request);
+
+        when(bookClient.reserveBook(any(), eq(bookId), any())).thenReturn(new BookResponse(bookId, "Book", 0));
+        when(borrowingRepository.confirm(borrowing.getId())).thenReturn(0);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> borrowingService.borrowBook(request, null));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+    }
+
+    @Test
+    void borrowBook_saveFails_touchesNoRemoteService() {
+        UUID userId = UUID.randomUUID();
+        UUID bookId = UUID.randomUUID();
+        BorrowingRequest request = new BorrowingRequest(userId, bookId);
+        Borrowing borrowing = new Borrowing();
+
+        when(borrowingMapper.toEntity(request)).thenReturn(borrowing);
+        when(borrowingRepository.save(borrowing)).thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> borrowingService.borrowBook(request, null));
+        verifyNoInteractions(userClient, bookClient, borrowSagaCompensator);
+    }
+
+    @Test
+    void borrowBook_sameIdempotencyKey_runsSagaOnce() {
+        UUID userId = UUID.randomUUID();
+        UUID bookId = UUID.randomUUID();
+        BorrowingRequest request = new BorrowingRequest(userId, bookId);
+        Borrowing borrowing = stubReservedBorrowing(request);
+        BorrowingResponse response = new BorrowingResponse(
+                UUID.randomUUID(), userId, bookId, LocalDate.now(), LocalDate.now().plusDays(14), null);
+
+        when(borrowingRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.empty());
+        when(bookClient.reserveBook(any(), eq(bookId), any())).thenReturn(new BookResponse(bookId, "Book", 0));
+        when(borrowingRepository.confirm(any())).thenReturn(1);
+        when(borrowingMapper.toResponse(borrowing)).thenReturn(response);
+
+        assertEquals(response, borrowingService.borrowBook(request, "key-1"));
+        assertEquals(response, borrowingService.borrowBook(request, "key-1"));
+
+        assertEquals("key-1", borrowing.getIdempotencyKey());
+        verify(borrowingRepository, times(1)).save(borrowing);
+        verify(bookClient, times(1)).reserveBook(any(), eq(bookId), any());
+    }
+
+    @Test
+    void borrowBook_idempotencyKeyKnownOnlyToDatabase_replaysStoredBorrowing() {
+        UUID userId = UUID.randomUUID();
+        UUID bookId = UUID.randomUUID();
+        BorrowingRequest request = new BorrowingRequest(userId, bookId);
+        Borrowing stored = Borrowing.builder().id(UUID.randomUUID()).userId(userId).bookId(bookId)
+                .status(BorrowingStatus.CONFIRMED).idempotencyKey("key-1").build();
+        BorrowingResponse response = new BorrowingResponse(
+                stored.getId(), userId, bookId, LocalDate.now(), LocalDate.now().plusDays(14), null);
+
+        when(borrowingRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.of(stored));
+        when(borrowingMapper.toResponse(stored)).thenReturn(response);
+
+        assertEquals(response, borrowingService.borrowBook(request, "key-1"));
+        verify(borrowingRepository, never()).save(any());
+        verifyNoInteractions(userClient, bookClient);
+    }
+
+    @Test
+    void borrowBook_idempotencyKeyStillReserved_throwsConflict() {
+        UUID userId = UUID.randomUUID();
         UUID bookId = UUID.randomUUID();
+        BorrowingRequest request = new BorrowingRequest(userId, bookId);
+        Borrowing stored = Borrowing.builder().id(UUID.randomUUID()).userId(userId).bookId(bookId)
+                .status(BorrowingStatus.RESERVED).idempotencyKey("key-1").build();
+
+        when(borrowingRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.of(stored));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> borrowingService.borrowBook(request, "key-1"));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        verifyNoInteractions(userClient, bookClient);
+    }
+
+    @Test
+    void borrowBook_idempotencyKeyReusedForOtherBook_throwsUnprocessable() {
         UUID userId = UUID.randomUUID();
+        BorrowingRequest request = new BorrowingRequest(userId, UUID.randomUUID());
+        Borrowing stored = Borrowing.builder().id(UUID.randomUUID()).userId(userId).bookId(UUID.randomUUID())
+                .status(BorrowingStatus.CONFIRMED).idempotencyKey("key-1").build();
+
+        when(borrowingRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.of(stored));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> borrowingService.borrowBook(request, "key-1"));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatusCode());
+    }
+
+    @Test
+    void borrowBook_idempotencyKeyClaimedConcurrently_replaysWinner() {
+        UUID userId = UUID.randomUUID();
+        UUID bookId = UUID.randomUUID();
+        BorrowingRequest request = new BorrowingRequest(userId, bookId);
         Borrowing borrowing = new Borrowing();
+        Borrowing winner = Borrowing.builder().id(UUID.randomUUID()).userId(userId).bookId(bookId)
+                .status(BorrowingStatus.CONFIRMED).idempotencyKey("key-1").build();
+        BorrowingResponse response = new BorrowingResponse(
+                winner.getId(), userId, bookId, LocalDate.now(), LocalDate.now().plusDays(14), null);
+
+        when(borrowingRepository.findByIdempotencyKey("key-1"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(winner));
+        when(borrowingMapper.toEntity(request)).thenReturn(borrowing);
+        when(borrowingRepository.save(borrowing)).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(borrowingMapper.toResponse(winner)).thenReturn(response);
+
+        assertEquals(response, borrowingService.borrowBook(request, "key-1"));
+        verifyNoInteractions(userClient, bookClient, borrowSagaCompensator);
+    }
+
+    @Test
+    void borrowBook_blankIdempotencyKey_throwsException() {
+        BorrowingRequest request = new BorrowingRequest(UUID.randomUUID(), UUID.randomUUID());
+
+        assertThrows(BusinessRuleException.class, () -> borrowingService.borrowBook(request, " "));
+        verifyNoInteractions(borrowingRepository, userClient, bookClient);
+    }
+
+    @Test
+    void getAll_returnsMappedList() {
+        UUID bookId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
         BorrowingResponse response = new BorrowingResponse(
                 UUID.randomUUID(), userId, bookId,
                 LocalDate.now(), LocalDate.now().plusDays(14), null
         );
 
-        when(borrowingRepository.findAll()).thenReturn(List.of(borrowing));
-        when(borrowingMapper.toResponse(borrowing)).thenReturn(response);
+        when(borrowingRepository.findAllResponses()).thenReturn(List.of(response));
 
         List<BorrowingResponse> result = borrowingService.getAll();
 
@@ -118,7 +341,11 @@ class BorrowingServiceTest {
         BorrowingResponse result = borrowingService.returnBook(borrowingId);
 
         assertEquals(response, result);
-        verify(bookClient).increaseStock(bookId);
+        ArgumentCaptor<StockOutboxEvent> queued = ArgumentCaptor.forClass(StockOutboxEvent.class);
+        verify(stockOutboxRepository).save(queued.capture());
+        assertEquals(bookId, queued.getValue().getBookId());
+        assertEquals(1, queued.getValue().getQuantity());
+        verifyNoInteractions(bookClient);
     }
 
     @Test
@@ -133,6 +360,19 @@ class BorrowingServiceTest {
         assertTrue(ex.getMessage().contains("already returned"));
     }
 
+    @Test
+    void returnBook_notConfirmed_throwsException() {
+        UUID borrowingId = UUID.randomUUID();
+        Borrowing borrowing = new Borrowing();
+        borrowing.setStatus(BorrowingStatus.COMPENSATED);
+
+        when(borrowingRepository.findById(borrowingId)).thenReturn(Optional.of(borrowing));
+
+        Exception ex = assertThrows(RuntimeException.class, () -> borrowingService.returnBook(borrowingId));
+        assertTrue(ex.getMessage().contains("not active"));
+        verifyNoInteractions(stockOutboxRepository);
+    }
+
     @Test
     void getById_found_returnsMapped() {
         UUID id = UUID.randomUUID();
@@ -156,14 +396,12 @@ class BorrowingServiceTest {
     void getByUserId_returnsList() {
         UUID bookId = UUID.randomUUID();
         UUID userId = UUID.randomUUID();
-        Borrowing borrowing = new Borrowing();
         BorrowingResponse response = new BorrowingResponse(
                 UUID.randomUUID(), userId, bookId,
                 LocalDate.now(), LocalDate.now().plusDays(14), null
         );
 
-        when(borrowingRepository.findByUserId(userId)).thenReturn(List.of(borrowing));
-        when(borrowingMapper.toResponse(borrowing)).thenReturn(response);
+        when(borrowingRepository.findResponsesByUserId(userId)).thenReturn(List.of(response));
 
         List<BorrowingResponse> result = borrowingService.getByUserId(userId);
 
@@ -181,7 +419,7 @@ class BorrowingServiceTest {
                 LocalDate.now().minusDays(20), LocalDate.now().minusDays(5), null
         );
 
-        when(borrowingRepository.findByDueDateBeforeAndReturnDateIsNull(any())).thenReturn(List.of(borrowing));
+        when(borrowingRepository.findByDueDateBeforeAndReturnDateIsNullAndStatus(any(), eq(BorrowingStatus.CONFIRMED))).thenReturn(List.of(borrowing));
         when(borrowingMapper.toResponse(borrowing)).thenReturn(response);
 
         List<BorrowingResponse> result = borrowingService.getOverdueBorrowings();
@@ -196,11 +434,24 @@ class BorrowingServiceTest {
         Borrowing borrowing = new Borrowing();
         borrowing.setUserId(userId);
 
-        when(borrowingRepository.findByDueDateBeforeAndReturnDateIsNull(any())).thenReturn(List.of(borrowing));
+        when(borrowingRepository.findByDueDateBeforeAndReturnDateIsNullAndStatus(any(), eq(BorrowingStatus.CONFIRMED))).thenReturn(List.of(borrowing));
 
         String report = borrowingService.generateOverdueReport();
 
         assertTrue(report.contains("Total Overdue Borrowings: 1"));
         assertTrue(report.contains(userId.toString()));
     }
-}
\ No newline at end of file
+
+    private Borrowing stubReservedBorrowing(BorrowingRequest request) {
+        Borrowing borrowing = Borrowing.builder()
+                .id(UUID.randomUUID())
+                .userId(request.userId())
+                .bookId(request.bookId())
+                .borrowDate(LocalDate.now())
+                .dueDate(LocalDate.now().plusDays(14))
+                .build();
+        when(borrowingMapper.toEntity(request)).thenReturn(borrowing);
+        when(borrowingRepository.save(borrowing)).thenReturn(borrowing);
+        return borrowing;
+    }
+}
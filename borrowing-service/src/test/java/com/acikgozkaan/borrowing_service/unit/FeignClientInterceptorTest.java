@@ -11,6 +11,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -49,4 +52,16 @@ class FeignClientInterceptorTest {
 
         verify(requestTemplate, never()).header(anyString(), anyString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldKeepExplicitAuthorizationHeader() {
+        when(requestTemplate.headers()).thenReturn(Map.of("Authorization", List.of("Bearer service-token")));
+
+        new FeignClientInterceptor()
+                .requestInterceptor()
+                .apply(requestTemplate);
+
+        verify(requestTemplate, never()).header(anyString(), anyString());
+        verifyNoInteractions(httpServletRequest);
+    }
+}
@@ -0,0 +1,99 @@
+package com.acikgozkaan.borrowing_service.unit;
+
+import com.acikgozkaan.borrowing_service.client.ParallelClientCalls;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelClientCallsTest {
+
+    private final ParallelClientCalls calls = new ParallelClientCalls(Duration.ofSeconds(2));
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        calls.shutdown();
+    }
+
+    @Test
+    void settle_runsCallsConcurrentlyWithCallerAuthorization() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer test-token");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        ParallelClientCalls.Both<ParallelClientCalls.Outcome<String>, ParallelClientCalls.Outcome<String>> result =
+                calls.settle(
+                        authorization -> authorizationSeenAfter(bothStarted, authorization),
+                        authorization -> authorizationSeenAfter(bothStarted, authorization));
+
+        assertEquals("Bearer test-token", result.first().value());
+        assertEquals("Bearer test-token", result.second().value());
+    }
+
+    @Test
+    void settle_timeoutCancelsBothCalls() throws InterruptedException {
+        ParallelClientCalls impatient = new ParallelClientCalls(Duration.ofMillis(100));
+        CountDownLatch interrupted = new CountDownLatch(2);
+
+        ResponseStatusException thrown = assertThrows(ResponseStatusException.class, () -> impatient.settle(
+                authorization -> sleepUntilInterrupted(interrupted),
+                authorization -> sleepUntilInterrupted(interrupted)));
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, thrown.getStatusCode());
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        impatient.shutdown();
+    }
+
+    @Test
+    void settle_failureLetsSiblingFinishAndReportsBothOutcomes() {
+        ParallelClientCalls.Both<ParallelClientCalls.Outcome<String>, ParallelClientCalls.Outcome<String>> result =
+                calls.settle(
+                        authorization -> {
+                            throw new IllegalStateException("user not found");
+                        },
+                        authorization -> {
+                            try {
+                                Thread.sleep(100);
+                            } catch (InterruptedException e) {
+                                throw new IllegalStateException("interrupted");
+                            }
+                            return "reserved";
+                        });
+
+        assertFalse(result.first().succeeded());
+        assertEquals("user not found", result.first().failure().getMessage());
+        assertTrue(result.second().succeeded());
+        assertEquals("reserved", result.second().value());
+    }
+
+    private static String authorizationSeenAfter(CountDownLatch bothStarted, String authorization) {
+        bothStarted.countDown();
+        try {
+            assertTrue(bothStarted.await(1, TimeUnit.SECONDS), "calls did not overlap");
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        assertNull(RequestContextHolder.getRequestAttributes(), "servlet request leaked to a worker thread");
+        return authorization;
+    }
+
+    private static String sleepUntilInterrupted(CountDownLatch interrupted) {
+        try {
+            Thread.sleep(10_000);
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.acikgozkaan.borrowing_service.unit;
+
+import com.acikgozkaan.borrowing_service.client.BookClient;
+import com.acikgozkaan.borrowing_service.dto.external.StockCommand;
+import com.acikgozkaan.borrowing_service.dto.external.StockCommandBatchRequest;
+import com.acikgozkaan.borrowing_service.dto.external.StockCommandResult;
+import com.acikgozkaan.borrowing_service.entity.StockOutboxEvent;
+import com.acikgozkaan.borrowing_service.outbox.StockOutboxRelay;
+import com.acikgozkaan.borrowing_service.repository.StockOutboxRepository;
+import com.acikgozkaan.borrowing_service.security.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockOutboxRelayTest {
+
+    private static final String SECRET = "testsecretkey12345678901234567890123456789012";
+
+    @Mock private StockOutboxRepository outboxRepository;
+    @Mock private BookClient bookClient;
+
+    private final JwtService jwtService = new JwtService(SECRET);
+    private SimpleMeterRegistry meterRegistry;
+    private StockOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new StockOutboxRelay(outboxRepository, bookClient, jwtService, meterRegistry,
+                false, 10, Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void relay_sendsDueEventsAsOneBatchAndDeletesThem() {
+        List<StockOutboxEvent> batch = List.of(event(), event());
+        when(outboxRepository.findDue(any(Instant.class), any(Pageable.class))).thenReturn(batch);
+        when(bookClient.applyStockCommands(anyString(), any())).thenReturn(new StockCommandResult(2, 0));
+
+        relay.relay();
+
+        ArgumentCaptor<String> authorization = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<StockCommandBatchRequest> request = ArgumentCaptor.forClass(StockCommandBatchRequest.class);
+        verify(bookClient).applyStockCommands(authorization.capture(), request.capture());
+        assertEquals(JwtService.SERVICE_ROLE,
+                jwtService.getClaims(authorization.getValue().substring(7)).get("role", String.class));
+        assertEquals(batch.stream().map(StockOutboxEvent::getId).toList(),
+                request.getValue().commands().stream().map(StockCommand::id).toList());
+        verify(outboxRepository).deleteAllInBatch(batch);
+        assertEquals(2, meterRegistry.get("borrowing.outbox.relayed").counter().count());
+    }
+
+    @Test
+    void relay_failureKeepsEventsAndBacksOff() {
+        StockOutboxEvent queued = event();
+        Instant before = Instant.now();
+        when(outboxRepository.findDue(any(Instant.class), any(Pageable.class))).thenReturn(List.of(queued));
+        when(bookClient.applyStockCommands(anyString(), any())).thenThrow(new IllegalStateException("connection refused"));
+
+        relay.relay();
+
+        verify(outboxRepository).saveAll(List.of(queued));
+        verify(outboxRepository, never()).deleteAllInBatch(any());
+        assertEquals(1, queued.getAttempts());
+        assertEquals("connection refused", queued.getLastError());
+        assertTrue(queued.getNextAttemptAt().isAfter(before.plusMillis(499)));
+        assertFalse(queued.getNextAttemptAt().isAfter(Instant.now().plusSeconds(1)));
+        assertEquals(1, meterRegistry.get("borrowing.outbox.failures").counter().count());
+    }
+
+    @Test
+    void relay_reportsAgeOfOldestPendingEventAsLag() {
+        when(outboxRepository.findDue(any(Instant.class), any(Pageable.class))).thenReturn(List.of());
+        when(outboxRepository.findOldestCreatedAt()).thenReturn(Optional.of(Instant.now().minusSeconds(30)));
+        when(outboxRepository.count()).thenReturn(3L);
+
+        relay.relay();
+
+        double lagSeconds = meterRegistry.get("borrowing.outbox.lag").timeGauge().value(TimeUnit.SECONDS);
+        assertTrue(lagSeconds >= 30 && lagSeconds < 40);
+        assertEquals(3, meterRegistry.get("borrowing.outbox.pending").gauge().value());
+        verifyNoInteractions(bookClient);
+    }
+
+    private static StockOutboxEvent event() {
+        Instant now = Instant.now();
+        return StockOutboxEvent.builder()
+                .id(UUID.randomUUID())
+                .bookId(UUID.randomUUID())
+                .quantity(1)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build();
+    }
+}
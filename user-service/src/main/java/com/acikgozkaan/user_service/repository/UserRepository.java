@@ -1,8 +1,11 @@
 package com.acikgozkaan.user_service.repository;
 
+import com.acikgozkaan.user_service.dto.response.user.UserResponse;
 import com.acikgozkaan.user_service.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,4 +16,8 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByPhone(String phone);
     boolean existsByEmailAndIdNot(String email, UUID id);
     boolean existsByPhoneAndIdNot(String phone, UUID id);
+
+    @Query("SELECT new com.acikgozkaan.user_service.dto.response.user.UserResponse(" +
+            "u.id, u.email, u.name, u.surname, u.phone, u.address) FROM User u")
+    List<UserResponse> findAllResponses();
 }
\ No newline at end of file
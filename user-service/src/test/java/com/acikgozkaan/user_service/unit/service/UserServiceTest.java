@@ -84,13 +84,12 @@ class UserServiceTest {
     @Test
     @DisplayName("Should get all users")
     void shouldGetAllUsers() {
-        when(userRepository.findAll()).thenReturn(List.of(user));
-        when(userMapper.toUserResponse(user)).thenReturn(new UserResponse(userId, user.getEmail(), user.getName(), user.getSurname(), user.getPhone(), user.getAddress()));
+        when(userRepository.findAllResponses()).thenReturn(List.of(new UserResponse(userId, user.getEmail(), user.getName(), user.getSurname(), user.getPhone(), user.getAddress())));
 
         List<UserResponse> result = userService.getAllUsers();
 
         assertThat(result).hasSize(1);
-        verify(userRepository).findAll();
+        verify(userRepository).findAllResponses();
     }
 
     @Test